@@ -0,0 +1,258 @@
+package nonogram;
+
+/**
+ * The cell states of a row or column held as bit masks: one mask of FULL cells and one of EMPTY
+ * cells (a cell in neither is UNKNOWN). Bit i of a mask is cell i of the line.
+ * <p>
+ * Lines of up to 64 cells are held in two longs; longer lines fall back to arrays of long words.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class BitLine {
+	/**
+	 * Constructor, all cells are UNKNOWN
+	 *
+	 * @param length the number of cells in the line
+	 */
+	public BitLine(int length) {
+		if (length < 1)
+			throw new IllegalArgumentException("length must be positive (" + length + ")");
+		this.length = length;
+		if (length > WORD_SIZE) {
+			int words  = (length + WORD_SIZE - 1) / WORD_SIZE;
+			fullWords  = new long[words];
+			emptyWords = new long[words];
+		}
+	}
+
+	/**
+	 * Constructor from an array of cell states
+	 *
+	 * @param states the cell states (EMPTY, FULL or UNKNOWN)
+	 */
+	public BitLine(byte[] states) {
+		this(states == null ? 0 : states.length);
+		setStates(states);
+	}
+
+	/**
+	 * Retrieve the number of cells in the line
+	 *
+	 * @return the length
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Is the line held in two longs (at most 64 cells)?
+	 *
+	 * @return true if the line is at most 64 cells long, otherwise false
+	 */
+	public boolean isSmall() {
+		return fullWords == null;
+	}
+
+	/**
+	 * Retrieve the mask of FULL cells of a small line
+	 *
+	 * @return the FULL mask
+	 */
+	public long getFull() {
+		checkSmall();
+		return full;
+	}
+
+	/**
+	 * Retrieve the mask of EMPTY cells of a small line
+	 *
+	 * @return the EMPTY mask
+	 */
+	public long getEmpty() {
+		checkSmall();
+		return empty;
+	}
+
+	/**
+	 * Set both masks of a small line
+	 *
+	 * @param full the FULL mask
+	 * @param empty the EMPTY mask
+	 */
+	public void setMasks(long full, long empty) {
+		checkSmall();
+		if ((full & empty) != 0)
+			throw new IllegalArgumentException("a cell cannot be both FULL and EMPTY");
+		long mask = mask(length);
+		if (((full | empty) & ~mask) != 0)
+			throw new IllegalArgumentException("masks have bits beyond the line length (" + length + ")");
+		this.full  = full;
+		this.empty = empty;
+	}
+
+	/**
+	 * Retrieve the FULL mask words of a long line (not copied, must not be modified)
+	 *
+	 * @return the FULL words
+	 */
+	public long[] getFullWords() {
+		checkLarge();
+		return fullWords;
+	}
+
+	/**
+	 * Retrieve the EMPTY mask words of a long line (not copied, must not be modified)
+	 *
+	 * @return the EMPTY words
+	 */
+	public long[] getEmptyWords() {
+		checkLarge();
+		return emptyWords;
+	}
+
+	/**
+	 * Copy both mask word arrays into a long line
+	 *
+	 * @param full the FULL words
+	 * @param empty the EMPTY words
+	 */
+	void setWords(long[] full, long[] empty) {
+		checkLarge();
+		System.arraycopy(full, 0, fullWords, 0, fullWords.length);
+		System.arraycopy(empty, 0, emptyWords, 0, emptyWords.length);
+	}
+
+	/**
+	 * Retrieve the state of a cell
+	 *
+	 * @param i the cell index
+	 * @return the cell state (EMPTY, FULL or UNKNOWN)
+	 */
+	public int get(int i) {
+		checkIndex(i);
+		long bit = 1L << i;
+		long f, e;
+		if (fullWords == null) {
+			f = full;
+			e = empty;
+		} else {
+			f = fullWords[i >>> 6];
+			e = emptyWords[i >>> 6];
+		}
+		if ((f & bit) != 0)
+			return Nonogram.FULL;
+		if ((e & bit) != 0)
+			return Nonogram.EMPTY;
+		return Nonogram.UNKNOWN;
+	}
+
+	/**
+	 * Set the state of a cell
+	 *
+	 * @param i the cell index
+	 * @param state the new state (EMPTY, FULL or UNKNOWN)
+	 */
+	public void set(int i, int state) {
+		checkIndex(i);
+		if (!Cell.isValidState(state))
+			throw new IllegalArgumentException("invalid state (" + state + ")");
+		long bit = 1L << i;
+		if (fullWords == null) {
+			full  = (state == Nonogram.FULL)  ? (full | bit)  : (full & ~bit);
+			empty = (state == Nonogram.EMPTY) ? (empty | bit) : (empty & ~bit);
+		} else {
+			int w = i >>> 6;
+			fullWords[w]  = (state == Nonogram.FULL)  ? (fullWords[w] | bit)  : (fullWords[w] & ~bit);
+			emptyWords[w] = (state == Nonogram.EMPTY) ? (emptyWords[w] | bit) : (emptyWords[w] & ~bit);
+		}
+	}
+
+	/**
+	 * Set every cell state from an array
+	 *
+	 * @param states the cell states, which must match the line length
+	 */
+	public void setStates(byte[] states) {
+		if (states == null)
+			throw new IllegalArgumentException("states cannot be null");
+		if (states.length != length)
+			throw new IllegalArgumentException("states length ("+states.length+") must match line length ("+length+")");
+		for (int i=0; i<length; i++)
+			set(i, states[i]);
+	}
+
+	/**
+	 * Copy every cell state into an array
+	 *
+	 * @param states the array to fill, which must match the line length
+	 */
+	public void getStates(byte[] states) {
+		if (states == null)
+			throw new IllegalArgumentException("states cannot be null");
+		if (states.length != length)
+			throw new IllegalArgumentException("states length ("+states.length+") must match line length ("+length+")");
+		for (int i=0; i<length; i++)
+			states[i] = (byte) get(i);
+	}
+
+	/**
+	 * Count the UNKNOWN cells
+	 *
+	 * @return the number of unknown cells
+	 */
+	public int countUnknown() {
+		if (fullWords == null)
+			return length - Long.bitCount(full | empty);
+		int known = 0;
+		for (int w=0; w<fullWords.length; w++)
+			known += Long.bitCount(fullWords[w] | emptyWords[w]);
+		return length - known;
+	}
+
+	/**
+	 * String representation of the line, consisting of the sequence of cell states
+	 *
+	 * @return the string representation
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i<length; i++)
+			sb.append(get(i));
+		return sb.toString();
+	}
+
+	/**
+	 * The mask of the low bits of a word occupied by a line of up to 64 cells
+	 *
+	 * @param length the number of cells (1 to 64)
+	 * @return the mask
+	 */
+	static long mask(int length) {
+		return (length >= WORD_SIZE) ? -1L : ((1L << length) - 1);
+	}
+
+	private void checkIndex(int i) {
+		if ((i < 0) || (i >= length))
+			throw new IllegalArgumentException("i invalid, must be 0 <= i < " + length);
+	}
+
+	private void checkSmall() {
+		if (fullWords != null)
+			throw new NonogramException("line of " + length + " cells is not held in a single word");
+	}
+
+	private void checkLarge() {
+		if (fullWords == null)
+			throw new NonogramException("line of " + length + " cells is held in a single word");
+	}
+
+	public static final int WORD_SIZE = 64;
+
+	private final int length;
+	private long      full       = 0;    // FULL cells, lines of up to 64 cells
+	private long      empty      = 0;    // EMPTY cells, lines of up to 64 cells
+	private long[]    fullWords  = null; // FULL cells, longer lines
+	private long[]    emptyWords = null; // EMPTY cells, longer lines
+}
@@ -0,0 +1,529 @@
+package nonogram;
+
+/**
+ * A bit-parallel line solver and validity check for a row or column held as a BitLine.
+ * <p>
+ * The sets of possible block start positions are computed a whole word at a time with shifts and
+ * masks: a forward pass finds where each block can start given the cells before it, a backward
+ * pass where it can start given the cells after it, and their intersection gives the valid
+ * placements. Runs of non-EMPTY cells long enough for a block, and the spreading of gaps through
+ * non-FULL cells, use doubling (Kogge-Stone) so each block costs O(log length) word operations.
+ * <p>
+ * The static methods handle lines of up to 64 cells held in two longs and allocate nothing. The
+ * instance methods also handle longer lines, using work arrays that are reused between calls, so
+ * an instance is not thread-safe.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class BitLineSolver {
+	/**
+	 * Can a line of up to 64 cells still be completed to match a pattern?
+	 *
+	 * @param nums the pattern of contiguous full cells
+	 * @param full the mask of FULL cells
+	 * @param empty the mask of EMPTY cells
+	 * @param length the number of cells (at most 64)
+	 * @return true if the line is valid, otherwise false
+	 */
+	public static boolean isValid(int[] nums, long full, long empty, int length) {
+		if (!fits(nums, length))
+			return false;
+		long lineMask = BitLine.mask(length);
+		long notFull  = ~full & lineMask;
+		long notEmpty = ~empty & lineMask;
+		int  k        = nums.length;
+		long gap      = fillEast(notFull & 1L, notFull);
+		long starts   = 0;
+		for (int j=0; j<k; j++) {
+			int c  = nums[j];
+			starts = ((gap << 1) | ((j == 0) ? 1L : 0L)) & runStarts(notEmpty, c);
+			gap    = fillEast((starts << c) & notFull, notFull);
+		}
+		if (k == 0)
+			return notFull == lineMask;
+		return ((gap >>> (length-1)) & 1L) != 0 || ((starts >>> (length - nums[k-1])) & 1L) != 0;
+	}
+
+	/**
+	 * Do the FULL cells of a line of up to 64 cells exactly match a pattern (treating UNKNOWN as EMPTY)?
+	 *
+	 * @param nums the pattern of contiguous full cells
+	 * @param full the mask of FULL cells
+	 * @param length the number of cells (at most 64)
+	 * @return true if the line is solved, otherwise false
+	 */
+	public static boolean isSolved(int[] nums, long full, int length) {
+		long rest = full & BitLine.mask(length);
+		for (int j=0; j<nums.length; j++) {
+			if (rest == 0)
+				return false;
+			rest >>>= Long.numberOfTrailingZeros(rest);
+			int run = Long.numberOfTrailingZeros(~rest); // length of the run of ones now at bit 0
+			if (run != nums[j])
+				return false;
+			rest = (run == BitLine.WORD_SIZE) ? 0 : (rest >>> run);
+		}
+		return rest == 0;
+	}
+
+	/**
+	 * Can a line still be completed to match a pattern?
+	 *
+	 * @param nums the pattern of contiguous full cells
+	 * @param line the line
+	 * @return true if the line is valid, otherwise false
+	 */
+	public boolean isValid(int[] nums, BitLine line) {
+		if (!fits(nums, line.length()))
+			return false;
+		if (line.isSmall())
+			return isValid(nums, line.getFull(), line.getEmpty(), line.length());
+		return forward(nums, line, false);
+	}
+
+	/**
+	 * Do the FULL cells of a line exactly match a pattern (treating UNKNOWN as EMPTY)?
+	 *
+	 * @param nums the pattern of contiguous full cells
+	 * @param line the line
+	 * @return true if the line is solved, otherwise false
+	 */
+	public boolean isSolved(int[] nums, BitLine line) {
+		if (line.isSmall())
+			return isSolved(nums, line.getFull(), line.length());
+		long[] full = line.getFullWords();
+		int j   = 0;
+		int run = 0;
+		for (int i=0; i<line.length(); i++) {
+			if ((full[i >>> 6] & (1L << i)) != 0) {
+				run++;
+			} else if (run > 0) {
+				if ((j >= nums.length) || (nums[j] != run))
+					return false;
+				j++;
+				run = 0;
+			}
+		}
+		if (run > 0) {
+			if ((j >= nums.length) || (nums[j] != run))
+				return false;
+			j++;
+		}
+		return j == nums.length;
+	}
+
+	/**
+	 * Solve a line against a pattern, fixing every cell that has the same state in all placements.
+	 * The line is only modified if it is consistent with the pattern.
+	 *
+	 * @param nums the pattern of contiguous full cells
+	 * @param line the line, updated in place
+	 * @return the number of cells changed from UNKNOWN, or LineSolver.CONTRADICTION if no placement exists
+	 */
+	public int solve(int[] nums, BitLine line) {
+		if (nums == null)
+			throw new IllegalArgumentException("nums cannot be null");
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		if (!fits(nums, line.length()))
+			return LineSolver.CONTRADICTION;
+		if (line.isSmall())
+			return solveSmall(nums, line);
+		return solveLarge(nums, line);
+	}
+
+	/**
+	 * Solve a line of up to 64 cells
+	 */
+	private int solveSmall(int[] nums, BitLine line) {
+		int  n        = line.length();
+		int  k        = nums.length;
+		long lineMask = BitLine.mask(n);
+		long full     = line.getFull();
+		long empty    = line.getEmpty();
+		long notFull  = ~full & lineMask;
+		long notEmpty = ~empty & lineMask;
+		ensureSmall(k);
+
+		// forward: fwdGap[j] is where an EMPTY cell can follow blocks 0..j-1, fwd[j] where block j can start
+		long gap = fillEast(notFull & 1L, notFull);
+		fwdGap[0] = gap;
+		for (int j=0; j<k; j++) {
+			int c  = nums[j];
+			fwd[j] = ((gap << 1) | ((j == 0) ? 1L : 0L)) & runStarts(notEmpty, c);
+			gap    = fillEast((fwd[j] << c) & notFull, notFull);
+			fwdGap[j+1] = gap;
+		}
+		boolean ok = (k == 0) ? (notFull == lineMask)
+				: (((gap >>> (n-1)) & 1L) != 0) || (((fwd[k-1] >>> (n - nums[k-1])) & 1L) != 0);
+		if (!ok)
+			return LineSolver.CONTRADICTION;
+
+		// backward: bwdGap is where an EMPTY cell can precede blocks j..k-1
+		long bwdGap   = fillWest(notFull & (1L << (n-1)), notFull);
+		long canFull  = 0;
+		long canEmpty = fwdGap[k] & bwdGap;
+		for (int j=k-1; j>=0; j--) {
+			int  c      = nums[j];
+			long starts = (bwdGap >>> c) | ((j == k-1) ? (1L << (n-c)) : 0L);
+			long bwd    = starts & runStarts(notEmpty, c);
+			canFull    |= spread(fwd[j] & bwd, c);
+			bwdGap      = fillWest((bwd >>> 1) & notFull, notFull);
+			canEmpty   |= fwdGap[j] & bwdGap;
+		}
+		canEmpty &= notFull;
+
+		long newFull  = lineMask & ~canEmpty;
+		long newEmpty = lineMask & ~canFull;
+		if ((newFull & newEmpty) != 0)
+			return LineSolver.CONTRADICTION;
+		int changed = Long.bitCount((newFull | newEmpty) & ~(full | empty));
+		line.setMasks(newFull, newEmpty);
+		return changed;
+	}
+
+	/**
+	 * The forward pass over a long line, optionally keeping the per-block sets for solveLarge
+	 *
+	 * @return true if the line can be completed to match the pattern
+	 */
+	private boolean forward(int[] nums, BitLine line, boolean keep) {
+		int n = line.length();
+		int k = nums.length;
+		ensureLarge(n, k);
+		int w = words;
+		long[] full  = line.getFullWords();
+		long[] empty = line.getEmptyWords();
+		for (int i=0; i<w; i++) {
+			notFull[i]  = ~full[i];
+			notEmpty[i] = ~empty[i];
+		}
+		notFull[w-1]  &= lastMask;
+		notEmpty[w-1] &= lastMask;
+
+		// gap = fillEast(notFull & 1, notFull)
+		clear(gap);
+		gap[0] = notFull[0] & 1L;
+		fill(gap, notFull, false);
+		if (keep)
+			System.arraycopy(gap, 0, fwdGaps, 0, w);
+		boolean lastStart = false;
+		for (int j=0; j<k; j++) {
+			int c = nums[j];
+			// starts = ((gap << 1) | first) & runStarts(notEmpty, c)
+			shiftLeft(gap, 1, starts);
+			if (j == 0)
+				starts[0] |= 1L;
+			runStarts(notEmpty, c, run);
+			and(starts, run);
+			if (keep)
+				System.arraycopy(starts, 0, fwds, j*w, w);
+			if (j == k-1)
+				lastStart = testBit(starts, n - c);
+			// gap = fillEast((starts << c) & notFull, notFull)
+			shiftLeft(starts, c, gap);
+			and(gap, notFull);
+			fill(gap, notFull, false);
+			if (keep)
+				System.arraycopy(gap, 0, fwdGaps, (j+1)*w, w);
+		}
+		if (k == 0) {
+			for (int i=0; i<w; i++)
+				if (full[i] != 0)
+					return false;
+			return true;
+		}
+		return testBit(gap, n-1) || lastStart;
+	}
+
+	/**
+	 * Solve a line of more than 64 cells, using the same passes as solveSmall over arrays of words
+	 */
+	private int solveLarge(int[] nums, BitLine line) {
+		if (!forward(nums, line, true))
+			return LineSolver.CONTRADICTION;
+		int n = line.length();
+		int k = nums.length;
+		int w = words;
+
+		clear(canFull);
+		clear(gap); // the backward gap
+		setBit(gap, n-1);
+		and(gap, notFull);
+		fill(gap, notFull, true);
+		for (int i=0; i<w; i++)
+			canEmpty[i] = fwdGaps[k*w + i] & gap[i];
+		for (int j=k-1; j>=0; j--) {
+			int c = nums[j];
+			// starts = (bwdGap >>> c) | last
+			shiftRight(gap, c, starts);
+			if (j == k-1)
+				setBit(starts, n-c);
+			runStarts(notEmpty, c, run);
+			and(starts, run);
+			// canFull |= spread(fwd[j] & starts, c)
+			for (int i=0; i<w; i++)
+				run[i] = fwds[j*w + i] & starts[i];
+			spread(run, c);
+			for (int i=0; i<w; i++)
+				canFull[i] |= run[i];
+			// bwdGap = fillWest((starts >>> 1) & notFull, notFull)
+			shiftRight(starts, 1, gap);
+			and(gap, notFull);
+			fill(gap, notFull, true);
+			for (int i=0; i<w; i++)
+				canEmpty[i] |= fwdGaps[j*w + i] & gap[i];
+		}
+
+		long[] full  = line.getFullWords();
+		long[] empty = line.getEmptyWords();
+		int changed = 0;
+		for (int i=0; i<w; i++) {
+			long mask     = (i == w-1) ? lastMask : -1L;
+			long newFull  = mask & ~(canEmpty[i] & notFull[i]);
+			long newEmpty = mask & ~canFull[i];
+			if ((newFull & newEmpty) != 0)
+				return LineSolver.CONTRADICTION;
+			run[i]    = newFull;
+			starts[i] = newEmpty;
+		}
+		for (int i=0; i<w; i++) {
+			changed += Long.bitCount((run[i] | starts[i]) & ~(full[i] | empty[i]));
+			full[i]  = run[i];
+			empty[i] = starts[i];
+		}
+		return changed;
+	}
+
+	/**
+	 * Can the blocks of a pattern fit in a line of the given length at all?
+	 */
+	private static boolean fits(int[] nums, int length) {
+		int min = -1;
+		for (int c : nums)
+			min += c + 1;
+		return min <= length;
+	}
+
+	/**
+	 * Extend each set bit of gen to higher bits, through bits that are set in pro
+	 */
+	static long fillEast(long gen, long pro) {
+		gen |= pro & (gen << 1);
+		pro &= pro << 1;
+		gen |= pro & (gen << 2);
+		pro &= pro << 2;
+		gen |= pro & (gen << 4);
+		pro &= pro << 4;
+		gen |= pro & (gen << 8);
+		pro &= pro << 8;
+		gen |= pro & (gen << 16);
+		pro &= pro << 16;
+		gen |= pro & (gen << 32);
+		return gen;
+	}
+
+	/**
+	 * Extend each set bit of gen to lower bits, through bits that are set in pro
+	 */
+	static long fillWest(long gen, long pro) {
+		gen |= pro & (gen >>> 1);
+		pro &= pro >>> 1;
+		gen |= pro & (gen >>> 2);
+		pro &= pro >>> 2;
+		gen |= pro & (gen >>> 4);
+		pro &= pro >>> 4;
+		gen |= pro & (gen >>> 8);
+		pro &= pro >>> 8;
+		gen |= pro & (gen >>> 16);
+		pro &= pro >>> 16;
+		gen |= pro & (gen >>> 32);
+		return gen;
+	}
+
+	/**
+	 * The bits a where bits [a,a+c) are all set in cells
+	 */
+	static long runStarts(long cells, int c) {
+		long run  = cells;
+		int  span = 1;
+		while (2*span <= c) {
+			run  &= run >>> span;
+			span *= 2;
+		}
+		return run & (run >>> (c - span));
+	}
+
+	/**
+	 * The bits covered by blocks of length c starting at the set bits of starts
+	 */
+	static long spread(long starts, int c) {
+		long cover = starts;
+		int  span  = 1;
+		while (2*span <= c) {
+			cover |= cover << span;
+			span  *= 2;
+		}
+		return cover | (cover << (c - span));
+	}
+
+	// ---- word-array versions of the operations, for lines of more than 64 cells ----
+
+	/**
+	 * In place, extend each set bit of gen to higher bits (or lower bits if west), through bits set in pro
+	 */
+	private void fill(long[] gen, long[] pro, boolean west) {
+		System.arraycopy(pro, 0, fillPro, 0, words);
+		for (int s=1; s<length; s*=2) {
+			if (west)
+				shiftRight(gen, s, fillTmp);
+			else
+				shiftLeft(gen, s, fillTmp);
+			for (int i=0; i<words; i++)
+				gen[i] |= fillPro[i] & fillTmp[i];
+			if (west)
+				shiftRight(fillPro, s, fillTmp);
+			else
+				shiftLeft(fillPro, s, fillTmp);
+			and(fillPro, fillTmp);
+		}
+	}
+
+	/**
+	 * out = the bits a where bits [a,a+c) are all set in cells
+	 */
+	private void runStarts(long[] cells, int c, long[] out) {
+		System.arraycopy(cells, 0, out, 0, words);
+		int span = 1;
+		while (2*span <= c) {
+			shiftRight(out, span, fillTmp);
+			and(out, fillTmp);
+			span *= 2;
+		}
+		shiftRight(out, c - span, fillTmp);
+		and(out, fillTmp);
+	}
+
+	/**
+	 * In place, the bits covered by blocks of length c starting at the set bits
+	 */
+	private void spread(long[] starts, int c) {
+		int span = 1;
+		while (2*span <= c) {
+			shiftLeft(starts, span, fillTmp);
+			or(starts, fillTmp);
+			span *= 2;
+		}
+		shiftLeft(starts, c - span, fillTmp);
+		or(starts, fillTmp);
+	}
+
+	/**
+	 * out = in << s, masked to the line length (out must not be in)
+	 */
+	private void shiftLeft(long[] in, int s, long[] out) {
+		int ws = s >>> 6;
+		int bs = s & 63;
+		for (int i=words-1; i>=0; i--) {
+			int  src = i - ws;
+			long v   = (src >= 0) ? (in[src] << bs) : 0L;
+			if ((bs != 0) && (src-1 >= 0))
+				v |= in[src-1] >>> (64 - bs);
+			out[i] = v;
+		}
+		out[words-1] &= lastMask;
+	}
+
+	/**
+	 * out = in >>> s (out must not be in)
+	 */
+	private void shiftRight(long[] in, int s, long[] out) {
+		int ws = s >>> 6;
+		int bs = s & 63;
+		for (int i=0; i<words; i++) {
+			int  src = i + ws;
+			long v   = (src < words) ? (in[src] >>> bs) : 0L;
+			if ((bs != 0) && (src+1 < words))
+				v |= in[src+1] << (64 - bs);
+			out[i] = v;
+		}
+	}
+
+	private void and(long[] a, long[] b) {
+		for (int i=0; i<words; i++)
+			a[i] &= b[i];
+	}
+
+	private void or(long[] a, long[] b) {
+		for (int i=0; i<words; i++)
+			a[i] |= b[i];
+	}
+
+	private void clear(long[] a) {
+		for (int i=0; i<words; i++)
+			a[i] = 0;
+	}
+
+	private static boolean testBit(long[] a, int i) {
+		return (i >= 0) && ((a[i >>> 6] >>> i) & 1L) != 0;
+	}
+
+	private static void setBit(long[] a, int i) {
+		a[i >>> 6] |= 1L << i;
+	}
+
+	/**
+	 * Grow the per-block arrays for a small line of k blocks
+	 */
+	private void ensureSmall(int k) {
+		if (fwd.length < k+1) {
+			fwd    = new long[k+1];
+			fwdGap = new long[k+1];
+		}
+	}
+
+	/**
+	 * Size the word arrays for a long line of n cells and k blocks
+	 */
+	private void ensureLarge(int n, int k) {
+		length   = n;
+		words    = (n + 63) >>> 6;
+		lastMask = BitLine.mask(n - 64*(words-1));
+		if (notFull.length < words) {
+			notFull  = new long[words];
+			notEmpty = new long[words];
+			gap      = new long[words];
+			starts   = new long[words];
+			run      = new long[words];
+			canFull  = new long[words];
+			canEmpty = new long[words];
+			fillPro  = new long[words];
+			fillTmp  = new long[words];
+		}
+		if (fwds.length < (k+1)*words) {
+			fwds    = new long[(k+1)*words];
+			fwdGaps = new long[(k+1)*words];
+		}
+	}
+
+	// work arrays for small lines: one word per block
+	private long[] fwd    = new long[0];
+	private long[] fwdGap = new long[0];
+
+	// work arrays for long lines
+	private int    length   = 0;
+	private int    words    = 0;
+	private long   lastMask = 0;
+	private long[] notFull  = new long[0];
+	private long[] notEmpty = new long[0];
+	private long[] gap      = new long[0];
+	private long[] starts   = new long[0];
+	private long[] run      = new long[0];
+	private long[] canFull  = new long[0];
+	private long[] canEmpty = new long[0];
+	private long[] fillPro  = new long[0];
+	private long[] fillTmp  = new long[0];
+	private long[] fwds     = new long[0]; // (k+1) x words
+	private long[] fwdGaps  = new long[0]; // (k+1) x words
+}
@@ -2,13 +2,16 @@ package nonogram;
 
 /**
  * A cell in a Nonogram puzzle.
+ * <p>
+ * A Cell is a lightweight view of one position of the puzzle: the state itself is held by the
+ * Nonogram, packed with the others, and a Cell only reads and sets it there (see Nonogram.getCell()).
  * 
  * @author Dr Mark C. Sinclair
  * @version September 2022
  */
 public class Cell {
     /**
-     * Constructor, the state is set to UNKNOWN
+     * Constructor, a view of the cell at a position of a puzzle
      * 
      * @param ng the nonogram puzzle this cell is part of
      * @param row the cell row in the grid
@@ -24,22 +27,6 @@ public class Cell {
         this.ng    = ng;
         this.row   = row;
         this.col   = col;
-        this.state = Nonogram.UNKNOWN;
-    }
-    
-    /**
-     * Constructor
-     * 
-     * @param ng the nonogram puzzle this cell is part of
-     * @param row the cell row in the grid
-     * @param col the cell column in the grid
-     * @param state the initial Cell state
-     */
-    public Cell(Nonogram ng, int row, int col, int state) {
-        this(ng, row, col);
-        if (!isValidState(state))
-            throw new IllegalArgumentException("invalid state (" + state + ")");
-        this.state = state;
     }
     
   /**
@@ -66,9 +53,7 @@ public class Cell {
      * @return true if the cell state is FULL, otherwise false
      */
     public boolean isFull() {
-        if (!checkState())
-            throw new NonogramException("invalid cell state (" + state + ")");
-        return state == Nonogram.FULL;
+        return getState() == Nonogram.FULL;
     }
     
     /**
@@ -77,9 +62,7 @@ public class Cell {
      * @return true if the cell state is EMPTY, otherwise false
      */
     public boolean isEmpty() {
-        if (!checkState())
-            throw new NonogramException("invalid cell state (" + state + ")");
-        return state == Nonogram.EMPTY;
+        return getState() == Nonogram.EMPTY;
     }
     
     /**
@@ -88,9 +71,7 @@ public class Cell {
      * @return true if the cell state is UNKNOWN, otherwise false
      */
     public boolean isUnknown() {
-        if (!checkState())
-            throw new NonogramException("invalid cell state (" + state + ")");
-        return state == Nonogram.UNKNOWN;
+        return getState() == Nonogram.UNKNOWN;
     }
     
     /**
@@ -99,41 +80,39 @@ public class Cell {
      * @return the cell state (FULL, EMPY or UNKNOWN)
      */
     public int getState() {
-        if (!checkState())
-            throw new NonogramException("invalid cell state (" + state + ")");
-        return state;
+        return ng.getState(row, col);
     }
     
     /**
      * Set the cell state to FULL
      */
     public void setFull() {
-        state = Nonogram.FULL;
+        setState(Nonogram.FULL);
     }
     
     /**
      * Set the cell state to EMPTY
      */
     public void setEmpty() {
-        state = Nonogram.EMPTY;
+        setState(Nonogram.EMPTY);
     }
     
     /**
      * Set the cell state to UNKNOWN
      */
     public void setUnknown() {
-        state = Nonogram.UNKNOWN;
+        setState(Nonogram.UNKNOWN);
     }
     
     /**
-     * Set the cell state
+     * Set the cell state in the puzzle (notifying its listeners)
      * 
      * @param state the desired state (FULL, EMPY or UNKNOWN)
      */
     void setState(int state) {
         if (!isValidState(state))
             throw new NonogramException("invalid state (" + state + ")");
-        this.state = state;
+        ng.setState(row, col, state);
     }
     
   /**
@@ -162,15 +141,6 @@ public class Cell {
         return sb.toString();
     }
 
-    /**
-     * Check the cell state is valid (FULL, EMPY or UNKNOWN)
-     * 
-     * @return true if the state is valid, otherwise false
-     */
-    private boolean checkState() {
-        return isValidState(state);
-    }
-    
     /**
      * Check if an integer is a valid cell state (FULL, EMPY or UNKNOWN)
      * 
@@ -205,8 +175,7 @@ public class Cell {
         return true;
     }
         
-    private int      state;
-    private int      row;
-    private int      col;
-  private Nonogram ng = null;    
+    private final int      row;
+    private final int      col;
+    private final Nonogram ng;
 }
@@ -1,33 +1,43 @@
 package nonogram;
 
-import java.util.Arrays;
-
 /**
  * A cell constraint (either row or column) in a Nonogram puzzle.
+ * <p>
+ * The constraint holds no cells of its own: it reads its row or column straight from the
+ * puzzle's array of cell states, or from its packed FULL and EMPTY bits when checking the status,
+ * a cell at a time along the line's stride.
  * 
  * @author Dr Mark C. Sinclair
  * @version September 2022
  */
 public class Constraint {
 	/**
-	 * Constructor
+	 * Constructor. The constraint is a view of a row or column of the puzzle's cell states, and is
+	 * kept in step with them by the puzzle.
 	 * 
 	 * @param pat the pattern of contiguous full cells that the cells should match
-	 * @param cells the cells to which the pattern applies
+	 * @param ng the puzzle
+	 * @param isRow true for a row, false for a column
+	 * @param index the row or column number
 	 */
-	public Constraint(NGPattern pat, Cell[] cells) {
+	Constraint(NGPattern pat, Nonogram ng, boolean isRow, int index) {
 		if (pat == null)
 			throw new IllegalArgumentException("pat cannot be null");
-		if (cells == null)
-			throw new IllegalArgumentException("cells cannot be null");
-		if (cells.length < Nonogram.MIN_SIZE)
-			throw new IllegalArgumentException("cells cannot be shorter than " + Nonogram.MIN_SIZE);
-		if (!Cell.checkSameNonogram(cells))
-			throw new IllegalArgumentException("cells must all be from the same Nonogram");
-		if (pat.getMaxLen() != cells.length)
-			throw new IllegalArgumentException("pat maxLen ("+pat.getMaxLen()+") must match length of cells array ("+cells.length+")");
-		this.pat   = pat;
-		this.cells = Arrays.copyOf(cells, cells.length);
+		if (ng == null)
+			throw new IllegalArgumentException("ng cannot be null");
+		int length = isRow ? ng.getNumCols() : ng.getNumRows();
+		if ((index < 0) || (index >= (isRow ? ng.getNumRows() : ng.getNumCols())))
+			throw new IllegalArgumentException("index invalid (" + index + ")");
+		if (pat.getMaxLen() != length)
+			throw new IllegalArgumentException("pat maxLen ("+pat.getMaxLen()+") must match length of line ("+length+")");
+		this.pat    = pat;
+		this.ng     = ng;
+		this.isRow  = isRow;
+		this.index  = index;
+		this.offset = isRow ? index*ng.getNumCols() : index;
+		this.stride = isRow ? 1 : ng.getNumCols();
+		this.length = length;
+		this.status = computeStatus();
 	}
 	
 	/**
@@ -36,7 +46,7 @@ public class Constraint {
 	 * @return true if valid, otherwise false
 	 */
 	public boolean isValid() {
-		return pat.isValid(getSequence());
+		return getStatus() != LineStatus.INVALID;
 	}
 	
 	/**
@@ -45,7 +55,28 @@ public class Constraint {
 	 * @return true if the cells solve the pattern, otherwise false
 	 */
 	public boolean isSolved() {
-		return pat.isSolved(getSequence());
+		return getStatus() == LineStatus.SOLVED;
+	}
+	
+	/**
+	 * Retrieve the status of the cells against the pattern. It is cached, and only worked out
+	 * again the first time it is asked for after a cell changes.
+	 * 
+	 * @return SOLVED, VALID or INVALID
+	 */
+	public LineStatus getStatus() {
+		if (stale) {
+			status = computeStatus();
+			stale  = false;
+		}
+		return status;
+	}
+	
+	/**
+	 * Record that one of the cells has changed, so the status must be worked out again
+	 */
+	void cellChanged() {
+		stale = true;
 	}
 	
 	/**
@@ -90,14 +121,41 @@ public class Constraint {
 	 * @return the sequence of cell state values
 	 */
 	public String getSequence() {
-		// seq could be cached, but is this worthwhile?
-		StringBuffer sb = new StringBuffer();
-		for (Cell c : cells)
-			sb.append(c);
-		String seq = sb.toString();
-		if (pat.getMaxLen() != seq.length())
-			throw new NonogramException("cells sequence length ("+seq.length()+") must match pat maxLen ("+pat.getMaxLen()+")");
-		return seq;
+		byte[]        states = ng.states();
+		StringBuilder sb     = new StringBuilder(length);
+		for (int i=0; i<length; i++)
+			sb.append((char) ('0' + states[offset + i*stride]));
+		return sb.toString();
+	}
+	
+	/**
+	 * Copy the state values of the cells into an array, without building a string
+	 * 
+	 * @param states the array to fill, which must match the length of the constraint
+	 */
+	public void getStates(byte[] states) {
+		if (states == null)
+			throw new IllegalArgumentException("states cannot be null");
+		if (states.length != length)
+			throw new IllegalArgumentException("states length ("+states.length+") must match length of line ("+length+")");
+		byte[] cells = ng.states();
+		for (int i=0; i<length; i++)
+			states[i] = cells[offset + i*stride];
+	}
+	
+	/**
+	 * Find the cells forced to FULL or EMPTY by this constraint, given the current cell states.
+	 * The cells themselves are not changed.
+	 * 
+	 * @param solver the line solver to use
+	 * @param states the array to receive the deduced states, which must match the length of the constraint
+	 * @return the number of UNKNOWN cells that are forced, or LineSolver.CONTRADICTION
+	 */
+	public int solve(LineSolver solver, byte[] states) {
+		if (solver == null)
+			throw new IllegalArgumentException("solver cannot be null");
+		getStates(states);
+		return solver.solve(pat, states);
 	}
 	
 	/**
@@ -110,18 +168,26 @@ public class Constraint {
 			throw new IllegalArgumentException("seq cannot be null");
 		if (seq.isEmpty())
 			throw new IllegalArgumentException("seq cannot be empty");
-		if (seq.length() != cells.length)
-			throw new IllegalArgumentException("seq length ("+seq.length()+") must match length of cells array ("+cells.length+")");
-		for (int i=0; i<cells.length; i++) {
-			int state = Nonogram.UNKNOWN;
-			try {
-				state = Integer.parseInt(seq.substring(i, i+1));
-			} catch (NumberFormatException e) {
+		if (seq.length() != length)
+			throw new IllegalArgumentException("seq length ("+seq.length()+") must match length of line ("+length+")");
+		for (int i=0; i<length; i++) {
+			int state = seq.charAt(i) - '0';
+			if ((state < 0) || (state > 9))
 				throw new IllegalArgumentException("seq contains non number (" + seq.charAt(i) + ")");
-			}
 			if (!Cell.isValidState(state))
 				throw new IllegalArgumentException("invalid state (" + state + ") in s["+ i +"]");
-			cells[i].setState(state);
+		}
+		ng.beginUpdate(); // one notification for the whole line
+		try {
+			for (int i=0; i<length; i++) {
+				int state = seq.charAt(i) - '0';
+				if (isRow)
+					ng.setState(index, i, state);
+				else
+					ng.setState(i, index, state);
+			}
+		} finally {
+			ng.endUpdate();
 		}
 	}
 	
@@ -149,6 +215,73 @@ public class Constraint {
 		return sb.toString();
 	}
 	
-	private NGPattern pat   = null;
-	private Cell[]    cells = null;
+	/**
+	 * Check the cells against the pattern (a solved line is always valid, since its UNKNOWN cells
+	 * can all be EMPTY)
+	 */
+	private LineStatus computeStatus() {
+		long[] fullBits  = ng.fullBits();
+		long[] emptyBits = ng.emptyBits();
+		if (length <= BitLine.WORD_SIZE) {
+			long full = gather(fullBits, 0, length);
+			if (BitLineSolver.isSolved(pat.nums(), full, length))
+				return LineStatus.SOLVED;
+			boolean valid = BitLineSolver.isValid(pat.nums(), full, gather(emptyBits, 0, length), length);
+			return valid ? LineStatus.VALID : LineStatus.INVALID;
+		}
+		
+		// a long line is gathered into a BitLine just for the check
+		long[] full  = new long[(length + BitLine.WORD_SIZE - 1) / BitLine.WORD_SIZE];
+		long[] empty = new long[full.length];
+		for (int w=0; w<full.length; w++) {
+			int first = w*BitLine.WORD_SIZE;
+			int count = Math.min(BitLine.WORD_SIZE, length - first);
+			full[w]  = gather(fullBits, first, count);
+			empty[w] = gather(emptyBits, first, count);
+		}
+		BitLine line = new BitLine(length);
+		line.setWords(full, empty);
+		if (bitSolver().isSolved(pat.nums(), line))
+			return LineStatus.SOLVED;
+		return bitSolver().isValid(pat.nums(), line) ? LineStatus.VALID : LineStatus.INVALID;
+	}
+	
+	/**
+	 * Gather up to 64 cells of the line from the puzzle's packed bits into a word, cell first in
+	 * bit 0: a row is a run of bits (in at most two words), a column one bit every stride
+	 */
+	private long gather(long[] bits, int first, int count) {
+		int start = offset + first*stride;
+		if (stride == 1) {
+			int  shift = start & 63;
+			long word  = bits[start >>> 6] >>> shift;
+			if ((shift != 0) && (shift + count > BitLine.WORD_SIZE))
+				word |= bits[(start >>> 6) + 1] << (BitLine.WORD_SIZE - shift);
+			return word & BitLine.mask(count);
+		}
+		long word = 0;
+		for (int i=0, idx=start; i<count; i++, idx+=stride)
+			word |= ((bits[idx >>> 6] >>> idx) & 1L) << i;
+		return word;
+	}
+	
+	/**
+	 * Retrieve the solver for lines too long for the static (single word) checks, creating it on first use
+	 */
+	private BitLineSolver bitSolver() {
+		if (bitSolver == null)
+			bitSolver = new BitLineSolver();
+		return bitSolver;
+	}
+	
+	private NGPattern     pat       = null;
+	private Nonogram      ng        = null;
+	private boolean       isRow     = true;  // a row, or a column?
+	private int           index     = -1;    // the row or column number
+	private int           offset    = -1;    // index of the first cell in the puzzle's states
+	private int           stride    = -1;    // distance between cells in the puzzle's states
+	private int           length    = -1;    // number of cells
+	private BitLineSolver bitSolver = null;  // only needed for lines of more than 64 cells
+	private LineStatus    status    = null;  // the status when last worked out
+	private boolean       stale     = false; // has a cell changed since?
 }
@@ -0,0 +1,269 @@
+package nonogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Random access to the puzzles of a binary corpus file written by CorpusWriter.
+ * <p>
+ * The file is memory-mapped, and the index gives the offset of any puzzle, so puzzle n is found in
+ * O(log segments) and decoded straight from the mapping without any text parsing. A single
+ * mapping is limited to 2GB, so a larger corpus is mapped in segments, each a run of whole
+ * records chosen from the index when the file is opened (and the index in pieces of its own). The
+ * mappings are read with absolute gets only, so a CorpusReader may be shared between threads.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class CorpusReader implements Closeable {
+	/**
+	 * Constructor, mapping the corpus file
+	 *
+	 * @param path the corpus file
+	 * @throws IOException if the file cannot be mapped or is not a corpus
+	 */
+	public CorpusReader(Path path) throws IOException {
+		this(path, MAX_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Constructor, mapping the corpus file in segments of at most a given size
+	 *
+	 * @param path the corpus file
+	 * @param maxSegmentSize the largest mapping of records, in bytes
+	 * @throws IOException if the file cannot be mapped or is not a corpus
+	 */
+	CorpusReader(Path path, long maxSegmentSize) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path cannot be null");
+		if ((maxSegmentSize < 1) || (maxSegmentSize > MAX_SEGMENT_SIZE))
+			throw new IllegalArgumentException("maxSegmentSize invalid, must be 1 <= maxSegmentSize <= " + MAX_SEGMENT_SIZE);
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < CorpusWriter.HEADER_SIZE)
+				throw new IOException("not a corpus file (too short)");
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CorpusWriter.HEADER_SIZE);
+			if (header.getInt(0) != CorpusWriter.MAGIC)
+				throw new IOException("not a corpus file (bad magic)");
+			if (header.getInt(4) != CorpusWriter.VERSION)
+				throw new IOException("unsupported corpus version (" + header.getInt(4) + ")");
+			count = header.getInt(8);
+			long indexOffset = header.getLong(12);
+			if ((count < 0) || (indexOffset < CorpusWriter.HEADER_SIZE) || (indexOffset + 8L*count > size))
+				throw new IOException("corrupt corpus header");
+
+			// the index, in pieces of INDEX_ENTRIES entries
+			index = new MappedByteBuffer[(count + INDEX_ENTRIES - 1) / INDEX_ENTRIES];
+			for (int i=0; i<index.length; i++) {
+				int entries = Math.min(INDEX_ENTRIES, count - i*INDEX_ENTRIES);
+				index[i] = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset + 8L*i*INDEX_ENTRIES, 8L*entries);
+			}
+
+			// the records, in segments of whole records
+			List<MappedByteBuffer> maps   = new ArrayList<>();
+			int[]                  firsts = new int[16];
+			long[]                 starts = new long[16];
+			int                    n      = 0;
+			while (n < count) {
+				long start = recordOffset(n);
+				int  end   = n + 1; // one past the last record in the segment
+				while ((end < count) && (recordEnd(end, indexOffset) - start <= maxSegmentSize))
+					end++;
+				long stop = recordEnd(end - 1, indexOffset);
+				if ((start < CorpusWriter.HEADER_SIZE) || (stop < start) || (stop > indexOffset))
+					throw new IOException("corrupt corpus index (puzzle " + n + ")");
+				if (stop - start > MAX_SEGMENT_SIZE)
+					throw new IOException("puzzle " + n + " is larger than 2GB");
+				if (maps.size() == firsts.length) {
+					firsts = Arrays.copyOf(firsts, 2*firsts.length);
+					starts = Arrays.copyOf(starts, 2*starts.length);
+				}
+				firsts[maps.size()] = n;
+				starts[maps.size()] = start;
+				maps.add(channel.map(FileChannel.MapMode.READ_ONLY, start, stop - start));
+				n = end;
+			}
+			segments      = maps.toArray(new MappedByteBuffer[0]);
+			segmentFirsts = Arrays.copyOf(firsts, segments.length);
+			segmentStarts = Arrays.copyOf(starts, segments.length);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Retrieve the number of puzzles
+	 *
+	 * @return the number of puzzles
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Build puzzle n, with its goal if it has one
+	 *
+	 * @param n the puzzle number (0 to size()-1)
+	 * @return the puzzle
+	 */
+	public Nonogram get(int n) {
+		int              seg   = segmentOf(n);
+		MappedByteBuffer map   = segments[seg];
+		int[]            pos   = { (int) (recordOffset(n) - segmentStarts[seg]) };
+		byte             flags = map.get(pos[0]++);
+		int numRows = readVarint(map, pos);
+		int numCols = readVarint(map, pos);
+		int[] lengths = new int[numRows + numCols];
+		for (int i=0; i<lengths.length; i++)
+			lengths[i] = readVarint(map, pos);
+		int[][] rowNums = new int[numRows][];
+		int[][] colNums = new int[numCols][];
+		for (int i=0; i<lengths.length; i++) {
+			int[] nums = new int[lengths[i]];
+			for (int j=0; j<nums.length; j++)
+				nums[j] = readVarint(map, pos);
+			if (i < numRows)
+				rowNums[i] = nums;
+			else
+				colNums[i - numRows] = nums;
+		}
+		Nonogram puzzle = new Nonogram(rowNums, colNums);
+		if ((flags & CorpusWriter.HAS_GOAL) != 0)
+			puzzle.setGoal(readGoal(map, pos, numRows*numCols)); // the goal follows the nums
+		return puzzle;
+	}
+
+	/**
+	 * Does puzzle n have a goal?
+	 *
+	 * @param n the puzzle number
+	 * @return true if the puzzle has a goal, otherwise false
+	 */
+	public boolean hasGoal(int n) {
+		int seg = segmentOf(n);
+		return (segments[seg].get((int) (recordOffset(n) - segmentStarts[seg])) & CorpusWriter.HAS_GOAL) != 0;
+	}
+
+	/**
+	 * Retrieve the goal of puzzle n as packed bits (bit row*numCols+col, in the layout of
+	 * Nonogram.getGoal())
+	 *
+	 * @param n the puzzle number
+	 * @return the goal bits, or null if the puzzle has no goal
+	 */
+	public long[] getGoal(int n) {
+		if (!hasGoal(n))
+			return null;
+		int              seg = segmentOf(n);
+		MappedByteBuffer map = segments[seg];
+		int[]            pos = { (int) (recordOffset(n) - segmentStarts[seg]) + 1 };
+		int numRows = readVarint(map, pos);
+		int numCols = readVarint(map, pos);
+		int total   = 0;
+		for (int i=0; i<numRows+numCols; i++)
+			total += readVarint(map, pos);
+		for (int i=0; i<total; i++)
+			readVarint(map, pos);
+		return readGoal(map, pos, numRows*numCols);
+	}
+
+	/**
+	 * Unmap (as far as Java allows) and close the file
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Retrieve the number of mappings the records are split into
+	 *
+	 * @return the number of segments
+	 */
+	int getSegmentCount() {
+		return segments.length;
+	}
+
+	/**
+	 * The file offset of puzzle n's record
+	 */
+	private long recordOffset(int n) {
+		if ((n < 0) || (n >= count))
+			throw new IllegalArgumentException("n invalid, must be 0 <= n < " + count);
+		return index[n / INDEX_ENTRIES].getLong(8*(n % INDEX_ENTRIES));
+	}
+
+	/**
+	 * The file offset just past puzzle n's record (records are stored in order, then the index)
+	 */
+	private long recordEnd(int n, long indexOffset) {
+		return (n + 1 < count) ? recordOffset(n + 1) : indexOffset;
+	}
+
+	/**
+	 * The segment holding puzzle n's record
+	 */
+	private int segmentOf(int n) {
+		if ((n < 0) || (n >= count))
+			throw new IllegalArgumentException("n invalid, must be 0 <= n < " + count);
+		int seg = Arrays.binarySearch(segmentFirsts, n);
+		return (seg >= 0) ? seg : -seg - 2;
+	}
+
+	/**
+	 * Decode a goal of numCells bits at pos[0], packed eight to a byte
+	 */
+	private static long[] readGoal(MappedByteBuffer map, int[] pos, int numCells) {
+		long[] goal = new long[(numCells + 63) >>> 6];
+		for (int i=0; i<numCells; i+=8) {
+			long b = map.get(pos[0]++) & 0xFF;
+			goal[i >>> 6] |= b << (i & 63);
+		}
+		return goal;
+	}
+
+	/**
+	 * Decode an unsigned varint at pos[0], advancing it
+	 */
+	private static int readVarint(MappedByteBuffer map, int[] pos) {
+		int p      = pos[0];
+		int value  = 0;
+		int shift  = 0;
+		while (true) {
+			byte b = map.get(p++);
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				break;
+			shift += 7;
+			if (shift > 28)
+				throw new NonogramException("corrupt varint at offset " + pos[0]);
+		}
+		pos[0] = p;
+		return value;
+	}
+
+	/**
+	 * The largest single mapping
+	 */
+	static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+	private static final int INDEX_ENTRIES = 1 << 27; // index entries per mapping (1GB)
+
+	private final FileChannel        channel;
+	private final int                count;
+	private final MappedByteBuffer[] index;         // the index, INDEX_ENTRIES offsets per mapping
+	private final MappedByteBuffer[] segments;      // the records, in runs of whole records
+	private final int[]              segmentFirsts; // the first puzzle of each segment
+	private final long[]             segmentStarts; // the file offset of each segment
+}
@@ -0,0 +1,207 @@
+package nonogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes puzzles to a binary corpus file, to be read back with a CorpusReader.
+ * <p>
+ * The file starts with a header (magic "NGC1", version, puzzle count and the offset of the index),
+ * followed by one record per puzzle, then the index: one long file offset per puzzle. A record
+ * holds a flags byte (bit 0: has a goal), then, as unsigned varints, the height, the width, the
+ * number of nums in each row and then each column (the CSR row pointers, stored as lengths), and
+ * every num one after another. A goal follows as height*width bits, row-major, packed eight to a
+ * byte with the first cell in the low bit.
+ * <p>
+ * The main method converts .non files, or the .non files under directories, into a corpus.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class CorpusWriter implements Closeable {
+	/**
+	 * Constructor, creating (or replacing) the corpus file
+	 *
+	 * @param path the corpus file
+	 * @throws IOException if the file cannot be created
+	 */
+	public CorpusWriter(Path path) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path cannot be null");
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buf.put(new byte[HEADER_SIZE]); // written properly by close()
+	}
+
+	/**
+	 * The entry point of the converter: java nonogram.CorpusWriter out.ngc (directory | file.non)...
+	 * Each .non file may hold a pack of puzzles.
+	 *
+	 * @param args the corpus file, then the directories and files to convert
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("usage: java nonogram.CorpusWriter out.ngc (directory | file.non)...");
+			System.exit(1);
+		}
+		try (CorpusWriter writer = new CorpusWriter(Paths.get(args[0]))) {
+			List<Path> files = new ArrayList<>();
+			for (int i=1; i<args.length; i++) {
+				Path path = Paths.get(args[i]);
+				if (Files.isDirectory(path)) {
+					try (Stream<Path> walk = Files.walk(path)) {
+						files.addAll(walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".non"))
+								.sorted().collect(Collectors.toList()));
+					}
+				} else {
+					files.add(path);
+				}
+			}
+			for (Path file : files) {
+				try (NonogramReader reader = new NonogramReader(file)) {
+					while (reader.hasNext()) {
+						writer.add(reader.next());
+					}
+				} catch (NonogramException e) {
+					System.err.println(file + ": " + e.getMessage());
+				}
+			}
+			System.err.println("wrote " + writer.getCount() + " puzzles to " + args[0]);
+		} catch (IOException e) {
+			System.err.println("CorpusWriter: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Add a puzzle, with its goal if it has one (the other metadata is not kept)
+	 *
+	 * @param puzzle the puzzle
+	 * @throws IOException if the corpus cannot be written
+	 */
+	public void add(Nonogram puzzle) throws IOException {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		int    numRows  = puzzle.getNumRows();
+		int    numCols  = puzzle.getNumCols();
+		int    numCells = numRows*numCols;
+		long[] goal     = puzzle.getGoal();
+		if (offsets.length == count)
+			offsets = Arrays.copyOf(offsets, 2*offsets.length);
+		offsets[count++] = position();
+
+		int[][] nums = new int[numRows + numCols][];
+		for (int row=0; row<numRows; row++)
+			nums[row] = puzzle.getRowNums(row);
+		for (int col=0; col<numCols; col++)
+			nums[numRows + col] = puzzle.getColNums(col);
+
+		ensure(1);
+		buf.put((goal != null) ? HAS_GOAL : 0);
+		putVarint(numRows);
+		putVarint(numCols);
+		for (int[] line : nums)
+			putVarint(line.length);
+		for (int[] line : nums)
+			for (int num : line)
+				putVarint(num);
+		if (goal != null) {
+			for (int i=0; i<numCells; i+=8) {
+				int b = 0;
+				for (int j=0; (j < 8) && (i + j < numCells); j++)
+					if ((goal[(i + j) >>> 6] & (1L << (i + j))) != 0)
+						b |= 1 << j;
+				ensure(1);
+				buf.put((byte) b);
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the number of puzzles added
+	 *
+	 * @return the number of puzzles
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Write the index and header, and close the file
+	 *
+	 * @throws IOException if the corpus cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		try {
+			long indexOffset = position();
+			for (int i=0; i<count; i++) {
+				ensure(Long.BYTES);
+				buf.putLong(offsets[i]);
+			}
+			flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(count).putLong(indexOffset);
+			header.flip();
+			channel.write(header, 0);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * The file offset of the next byte to be written
+	 */
+	private long position() {
+		return written + buf.position();
+	}
+
+	private void putVarint(int value) throws IOException {
+		ensure(5);
+		while ((value & ~0x7F) != 0) {
+			buf.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buf.put((byte) value);
+	}
+
+	/**
+	 * Make room in the buffer for n bytes
+	 */
+	private void ensure(int n) throws IOException {
+		if (buf.remaining() < n)
+			flush();
+	}
+
+	private void flush() throws IOException {
+		buf.flip();
+		while (buf.hasRemaining())
+			written += channel.write(buf);
+		buf.clear();
+	}
+
+	/** "NGC1" */
+	static final int  MAGIC       = 0x4E474331;
+	static final int  VERSION     = 1;
+	static final int  HEADER_SIZE = 20; // magic, version, count, index offset
+	static final byte HAS_GOAL    = 1;
+
+	private final FileChannel channel;
+	private final ByteBuffer  buf     = ByteBuffer.allocate(1 << 16);
+	private long              written = 0;              // bytes flushed to the channel
+	private long[]            offsets = new long[1024]; // record offsets, for the index
+	private int               count   = 0;
+}
@@ -0,0 +1,325 @@
+package nonogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal file of the moves made in a puzzle, from which a session can be
+ * recovered after a crash (see recover()).
+ * <p>
+ * The file starts with a header (magic "NGJ1", version, height, width and the puzzle's clue hash),
+ * followed by records, each a tag byte and its data: a move is a long packed as by
+ * MoveJournal.pack() and a CRC-32 of the tag and the long, and a checkpoint is the cell count, the
+ * state of every cell (a byte each, row-major) and a CRC-32 of those states. A new file starts
+ * with a checkpoint of the puzzle, and replaces the old one only once that is on the disk.
+ * <p>
+ * Moves are buffered and written, then forced to the disk, every few moves (see
+ * setSyncInterval()), and a checkpoint is written every so many moves (see
+ * setCheckpointInterval()), so saving costs only the moves since the last sync and recovery only
+ * replays the moves since the last checkpoint. A record cut short by a crash is ignored.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class JournalFile implements Closeable {
+	/**
+	 * Constructor, creating (or replacing) the journal file with a checkpoint of the puzzle. The
+	 * new file is written and forced to the disk under a temporary name, then moved over the old
+	 * one in a single step, so that a crash leaves either the old journal or the new one.
+	 *
+	 * @param path the journal file
+	 * @param puzzle the puzzle whose moves are journalled
+	 * @throws IOException if the file cannot be created
+	 */
+	public JournalFile(Path path, Nonogram puzzle) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path cannot be null");
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		this.puzzle = puzzle;
+		this.states = new byte[puzzle.getNumRows()*puzzle.getNumCols()];
+		Path tmp = path.resolveSibling(path.getFileName() + TMP_EXTENSION);
+		channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buf.putInt(MAGIC).putInt(VERSION).putInt(puzzle.getNumRows()).putInt(puzzle.getNumCols())
+				.putLong(puzzle.getClueHash());
+		try {
+			checkpoint();
+			Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			try {
+				Files.deleteIfExists(tmp);
+			} catch (IOException ex) {
+				e.addSuppressed(ex);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Append a cell change (written at the next sync)
+	 *
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @param oldState the state before the change
+	 * @param newState the state after the change
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void record(int row, int col, int oldState, int newState) throws IOException {
+		ensure(1 + Long.BYTES + Integer.BYTES);
+		int start = buf.position();
+		buf.put(MOVE).putLong(MoveJournal.pack(row, col, oldState, newState, 0));
+		moveCrc.reset();
+		moveCrc.update(buf.array(), start, 1 + Long.BYTES);
+		buf.putInt((int) moveCrc.getValue());
+		if (++movesSinceCheckpoint >= checkpointInterval)
+			checkpoint();
+		else if (++movesSinceSync >= syncInterval)
+			sync();
+	}
+
+	/**
+	 * Append a checkpoint of the puzzle as it is now, and sync
+	 *
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void checkpoint() throws IOException {
+		puzzle.getStates(states);
+		CRC32 crc = new CRC32();
+		crc.update(states);
+		ensure(1 + Integer.BYTES);
+		buf.put(CHECKPOINT).putInt(states.length);
+		for (int i=0; i<states.length; ) {
+			if (!buf.hasRemaining())
+				flush();
+			int n = Math.min(buf.remaining(), states.length - i);
+			buf.put(states, i, n);
+			i += n;
+		}
+		ensure(Integer.BYTES);
+		buf.putInt((int) crc.getValue());
+		movesSinceCheckpoint = 0;
+		sync();
+	}
+
+	/**
+	 * Write the buffered moves and force them to the disk
+	 *
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void sync() throws IOException {
+		flush();
+		channel.force(false);
+		movesSinceSync = 0;
+	}
+
+	/**
+	 * Set how often the moves are written and forced to the disk
+	 *
+	 * @param syncInterval the number of moves between syncs (1 to sync every move)
+	 */
+	public void setSyncInterval(int syncInterval) {
+		if (syncInterval < 1)
+			throw new IllegalArgumentException("syncInterval must be at least 1 (" + syncInterval + ")");
+		this.syncInterval = syncInterval;
+	}
+
+	/**
+	 * Set how often a checkpoint is written
+	 *
+	 * @param checkpointInterval the number of moves between checkpoints
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		if (checkpointInterval < 1)
+			throw new IllegalArgumentException("checkpointInterval must be at least 1 (" + checkpointInterval + ")");
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * Sync and close the file
+	 *
+	 * @throws IOException if the journal cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		try {
+			sync();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Restore a puzzle from a journal file: the cells are set from the last complete checkpoint, and
+	 * the moves after it are replayed, in one bulk update. Anything after the last complete, valid
+	 * record (such as a record cut short by a crash, or a move whose CRC does not match) is ignored. The
+	 * puzzle is only changed if the file can be recovered.
+	 *
+	 * @param path the journal file
+	 * @param puzzle the puzzle, which must have the clues the journal was written for
+	 * @return the number of moves replayed after the checkpoint
+	 * @throws IOException if the file cannot be read
+	 */
+	public static int recover(Path path, Nonogram puzzle) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path cannot be null");
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+		if ((in.remaining() < HEADER_SIZE) || (in.getInt() != MAGIC))
+			throw new NonogramException("not a journal file (" + path + ")");
+		int version = in.getInt();
+		if (version != VERSION)
+			throw new NonogramException("unsupported journal version (" + version + ")");
+		int numRows = in.getInt();
+		int numCols = in.getInt();
+		if ((numRows != puzzle.getNumRows()) || (numCols != puzzle.getNumCols()) || (in.getLong() != puzzle.getClueHash()))
+			throw new NonogramException("journal is for a different puzzle (" + path + ")");
+
+		// find the last complete checkpoint and the complete moves after it
+		int numCells   = numRows*numCols;
+		int checkpoint = -1; // offset of the states of the last checkpoint
+		int movesStart = -1; // offset of the first record after it
+		int movesEnd   = -1; // offset just past the last complete move after it
+		while (in.hasRemaining()) {
+			int  start = in.position();
+			byte tag   = in.get();
+			if ((tag == MOVE) && (in.remaining() >= Long.BYTES + Integer.BYTES)) {
+				CRC32 crc = new CRC32();
+				crc.update(in.array(), start, 1 + Long.BYTES);
+				long e = in.getLong();
+				if ((in.getInt() != (int) crc.getValue()) || (MoveJournal.rowOf(e) >= numRows)
+						|| (MoveJournal.colOf(e) >= numCols) || !Cell.isValidState(MoveJournal.newStateOf(e)))
+					break; // a torn or corrupt move
+				movesEnd = in.position();
+			} else if ((tag == CHECKPOINT) && (in.remaining() >= Integer.BYTES) && (in.getInt() == numCells)
+					&& (in.remaining() >= numCells + Integer.BYTES)) {
+				int   cells = in.position();
+				CRC32 crc   = new CRC32();
+				crc.update(in.array(), cells, numCells);
+				in.position(cells + numCells);
+				if ((in.getInt() != (int) crc.getValue()) || !validStates(in.array(), cells, numCells))
+					break; // a torn or corrupt checkpoint
+				checkpoint = cells;
+				movesStart = in.position();
+				movesEnd   = movesStart;
+			} else {
+				break; // cut short, or not a record
+			}
+		}
+		if (checkpoint < 0)
+			throw new NonogramException("journal has no complete checkpoint (" + path + ")");
+
+		int moves = 0;
+		puzzle.beginUpdate();
+		try {
+			byte[] data = in.array();
+			for (int row=0, i=checkpoint; row<numRows; row++)
+				for (int col=0; col<numCols; col++, i++)
+					puzzle.setState(row, col, data[i]);
+			in.position(movesStart);
+			while (in.position() < movesEnd) {
+				in.get(); // the MOVE tag
+				long e = in.getLong();
+				in.getInt(); // its CRC, already checked
+				puzzle.setState(MoveJournal.rowOf(e), MoveJournal.colOf(e), MoveJournal.newStateOf(e));
+				moves++;
+			}
+		} finally {
+			puzzle.endUpdate();
+		}
+		return moves;
+	}
+
+	/**
+	 * Move a journal file that could not be recovered out of the way (to the same name with ".bad"
+	 * added, replacing any earlier one), so that starting a new journal does not destroy it
+	 *
+	 * @param path the journal file
+	 * @return the file it was moved to
+	 * @throws IOException if the file cannot be moved
+	 */
+	public static Path moveAside(Path path) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path cannot be null");
+		Path bad = path.resolveSibling(path.getFileName() + BAD_EXTENSION);
+		return Files.move(path, bad, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Are the n bytes from offset all valid cell states?
+	 */
+	private static boolean validStates(byte[] data, int offset, int n) {
+		for (int i=offset; i<offset+n; i++)
+			if (!Cell.isValidState(data[i]))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Make room in the buffer for n bytes
+	 */
+	private void ensure(int n) throws IOException {
+		if (buf.remaining() < n)
+			flush();
+	}
+
+	private void flush() throws IOException {
+		buf.flip();
+		while (buf.hasRemaining())
+			channel.write(buf);
+		buf.clear();
+	}
+
+	/**
+	 * The extension added to a puzzle file's name to name its journal
+	 */
+	public static final String EXTENSION = ".jnl";
+
+	/**
+	 * The extension added to the name of a journal that could not be recovered (see moveAside())
+	 */
+	public static final String BAD_EXTENSION = ".bad";
+
+	/**
+	 * The extension added to the name of a new journal while it is being written (see the constructor)
+	 */
+	public static final String TMP_EXTENSION = ".tmp";
+
+	/**
+	 * The default number of moves between syncs
+	 */
+	public static final int DEFAULT_SYNC_INTERVAL = 16;
+
+	/**
+	 * The default number of moves between checkpoints
+	 */
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 4096;
+
+	/** "NGJ1" */
+	static final int  MAGIC       = 0x4E474A31;
+	static final int  VERSION     = 2; // 2 added the CRC of each move
+	static final int  HEADER_SIZE = 24; // magic, version, height, width, clue hash
+	static final byte MOVE        = 1;
+	static final byte CHECKPOINT  = 2;
+
+	private final FileChannel channel;
+	private final Nonogram    puzzle;
+	private final byte[]      states;                                     // work array for checkpoints
+	private final CRC32       moveCrc              = new CRC32();             // work CRC for moves
+	private final ByteBuffer  buf                  = ByteBuffer.allocate(1 << 13);
+	private int               syncInterval         = DEFAULT_SYNC_INTERVAL;
+	private int               checkpointInterval   = DEFAULT_CHECKPOINT_INTERVAL;
+	private int               movesSinceSync       = 0;
+	private int               movesSinceCheckpoint = 0;
+}
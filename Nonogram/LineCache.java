@@ -0,0 +1,300 @@
+package nonogram;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of line-solver results, keyed by a pattern and the cell states of
+ * a line before solving.
+ * <p>
+ * Search and probing solve the same (pattern, partial line) combinations over and over; a hit
+ * replaces the line solve with a hash lookup. The key is the pattern's nums plus the line's FULL
+ * and EMPTY masks (so two bits per cell), and the value is the masks after solving, or a marker for
+ * a contradiction.
+ * <p>
+ * The cache is split into segments, each with its own lock, so threads sharing a cache seldom
+ * wait for each other. Each segment evicts with the CLOCK algorithm: entries are kept in a ring
+ * with a reference bit that a hit sets, and the hand clears reference bits until it finds an
+ * entry that has not been used since it last passed.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class LineCache {
+	/**
+	 * Constructor
+	 *
+	 * @param capacity the most entries to hold (at least the number of segments)
+	 */
+	public LineCache(int capacity) {
+		if (capacity < SEGMENTS)
+			throw new IllegalArgumentException("capacity must be at least " + SEGMENTS + " (" + capacity + ")");
+		this.capacity = capacity;
+		segments = new Segment[SEGMENTS];
+		for (int i=0; i<SEGMENTS; i++)
+			segments[i] = new Segment(capacity / SEGMENTS + ((i < capacity % SEGMENTS) ? 1 : 0));
+	}
+
+	/**
+	 * Solve a line against a pattern, using a cached result when there is one.
+	 * The line is only modified if it is consistent with the pattern.
+	 *
+	 * @param solver the solver to use on a miss (one per thread)
+	 * @param nums the pattern of contiguous full cells (must not be modified afterwards)
+	 * @param line the cell states of the line, updated in place
+	 * @return the number of cells changed from UNKNOWN, or LineSolver.CONTRADICTION if no placement exists
+	 */
+	public int solve(BitLineSolver solver, int[] nums, BitLine line) {
+		if (solver == null)
+			throw new IllegalArgumentException("solver cannot be null");
+		if (nums == null)
+			throw new IllegalArgumentException("nums cannot be null");
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		Key     key     = new Key(nums, line);
+		Segment segment = segments[(key.hash ^ (key.hash >>> 16)) & (SEGMENTS - 1)];
+		long[]  result  = segment.get(key);
+		if (result != null) {
+			hits.increment();
+			if (result == CONTRADICTION)
+				return LineSolver.CONTRADICTION;
+			return apply(result, line);
+		}
+		misses.increment();
+		int changed = solver.solve(nums, line);
+		segment.put(key, (changed == LineSolver.CONTRADICTION) ? CONTRADICTION : masks(line));
+		return changed;
+	}
+
+	/**
+	 * Solve a line against a pattern, using a cached result when there is one.
+	 *
+	 * @param solver the solver to use on a miss (one per thread)
+	 * @param pat the pattern of contiguous full cells
+	 * @param line the cell states of the line, updated in place
+	 * @return the number of cells changed from UNKNOWN, or LineSolver.CONTRADICTION if no placement exists
+	 */
+	public int solve(BitLineSolver solver, NGPattern pat, BitLine line) {
+		if (pat == null)
+			throw new IllegalArgumentException("pat cannot be null");
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		if (line.length() != pat.getMaxLen())
+			throw new IllegalArgumentException("line is incorrect length for pattern (" + line.length() + "!=" + pat.getMaxLen()+")");
+		return solve(solver, pat.nums(), line);
+	}
+
+	/**
+	 * Retrieve the number of lookups that found a result
+	 *
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Retrieve the number of lookups that had to solve the line
+	 *
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Retrieve the number of entries evicted to make room for new ones
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Retrieve the number of entries held
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments)
+			size += segment.size();
+		return size;
+	}
+
+	/**
+	 * Retrieve the most entries the cache holds
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Remove every entry and reset the counters
+	 */
+	public void clear() {
+		for (Segment segment : segments)
+			segment.clear();
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+
+	/**
+	 * The masks of a line: FULL then EMPTY, one word each for a short line, or the word arrays
+	 * one after the other for a long line
+	 */
+	private static long[] masks(BitLine line) {
+		if (line.isSmall())
+			return new long[] { line.getFull(), line.getEmpty() };
+		long[] full  = line.getFullWords();
+		long[] empty = line.getEmptyWords();
+		long[] all   = Arrays.copyOf(full, full.length + empty.length);
+		System.arraycopy(empty, 0, all, full.length, empty.length);
+		return all;
+	}
+
+	/**
+	 * Copy a cached result into a line, returning the number of cells it fixes
+	 */
+	private static int apply(long[] result, BitLine line) {
+		if (line.isSmall()) {
+			int before = Long.bitCount(line.getFull() | line.getEmpty());
+			line.setMasks(result[0], result[1]);
+			return Long.bitCount(result[0] | result[1]) - before;
+		}
+		int before = line.countUnknown();
+		int words  = result.length / 2;
+		line.setWords(result, Arrays.copyOfRange(result, words, result.length));
+		return before - line.countUnknown();
+	}
+
+	/**
+	 * A pattern and line masks, with the hash computed once
+	 */
+	private static final class Key {
+		Key(int[] nums, BitLine line) {
+			this.nums   = nums;
+			this.length = line.length();
+			if (line.isSmall()) { // the masks are held in fields, so a lookup allocates only the key
+				full  = line.getFull();
+				empty = line.getEmpty();
+				masks = null;
+			} else {
+				full  = 0;
+				empty = 0;
+				masks = masks(line);
+			}
+			int h = Arrays.hashCode(nums);
+			h = 31*h + Long.hashCode(full*0x9E3779B97F4A7C15L ^ empty);
+			h = 31*h + Arrays.hashCode(masks);
+			this.hash = 31*h + length;
+		}
+
+		/**
+		 * Take a private copy of the nums before the key is stored
+		 */
+		Key detach() {
+			nums = nums.clone();
+			return this;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return (hash == other.hash) && (length == other.length) && (full == other.full) && (empty == other.empty)
+					&& Arrays.equals(masks, other.masks) && Arrays.equals(nums, other.nums);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		private int[]        nums;
+		private final int    length;
+		private final long   full;  // masks of a line of up to 64 cells
+		private final long   empty;
+		private final long[] masks; // masks of a longer line (see masks())
+		private final int    hash;
+	}
+
+	/**
+	 * One lock's worth of the cache: a map from key to ring slot, and the CLOCK ring
+	 */
+	private final class Segment {
+		Segment(int capacity) {
+			this.keys       = new Key[capacity];
+			this.values     = new long[capacity][];
+			this.referenced = new boolean[capacity];
+			this.slots      = new HashMap<>(2*capacity);
+		}
+
+		synchronized long[] get(Key key) {
+			Integer slot = slots.get(key);
+			if (slot == null)
+				return null;
+			referenced[slot] = true;
+			return values[slot];
+		}
+
+		synchronized void put(Key key, long[] value) {
+			if (slots.containsKey(key))
+				return; // another thread solved the same line first
+			int slot;
+			if (count < keys.length) {
+				slot = count++;
+			} else {
+				while (referenced[hand]) {
+					referenced[hand] = false;
+					hand = (hand + 1) % keys.length;
+				}
+				slot = hand;
+				hand = (hand + 1) % keys.length;
+				slots.remove(keys[slot]);
+				evictions.increment();
+			}
+			keys[slot]       = key.detach();
+			values[slot]     = value;
+			referenced[slot] = false;
+			slots.put(key, slot);
+		}
+
+		synchronized int size() {
+			return count;
+		}
+
+		synchronized void clear() {
+			Arrays.fill(keys, null);
+			Arrays.fill(values, null);
+			Arrays.fill(referenced, false);
+			slots.clear();
+			count = 0;
+			hand  = 0;
+		}
+
+		private final Key[]                 keys;
+		private final long[][]              values;
+		private final boolean[]             referenced; // CLOCK reference bits
+		private final HashMap<Key, Integer> slots;
+		private int                         count = 0;  // slots in use
+		private int                         hand  = 0;  // CLOCK hand
+	}
+
+	private static final int    SEGMENTS      = 16;         // a power of two
+	private static final long[] CONTRADICTION = new long[0]; // cached result of a line with no placement
+
+	private final int       capacity;
+	private final Segment[] segments;
+	private final LongAdder hits      = new LongAdder();
+	private final LongAdder misses    = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+}
@@ -0,0 +1,179 @@
+package nonogram;
+
+/**
+ * A dynamic-programming line solver for a single row or column of a Nonogram puzzle.
+ * <p>
+ * Given the pattern of contiguous full cells and the current (partial) cell states of a line,
+ * the solver finds the cells that are FULL in every placement of the blocks and the cells that
+ * are EMPTY in every placement, or reports that no placement exists. It runs in
+ * O(length x blocks) time, without regular expressions or strings.
+ * <p>
+ * The work arrays are reused between calls, so a LineSolver is not thread-safe; use one per thread.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class LineSolver {
+	/**
+	 * Solve a line against a pattern, fixing every cell that has the same state in all placements.
+	 * The line is only modified if it is consistent with the pattern.
+	 *
+	 * @param nums the pattern of contiguous full cells (an empty array means an all-empty line)
+	 * @param line the cell states of the line (EMPTY, FULL or UNKNOWN), updated in place
+	 * @return the number of cells changed from UNKNOWN, or CONTRADICTION if no placement exists
+	 */
+	public int solve(int[] nums, byte[] line) {
+		if (nums == null)
+			throw new IllegalArgumentException("nums cannot be null");
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		int n = line.length;
+		int k = nums.length;
+		ensureCapacity(n, k);
+		int w = n + 1; // row width of the fw/bw tables
+
+		// emptyBefore[i] is the number of EMPTY cells in [0,i)
+		emptyBefore[0] = 0;
+		for (int i=0; i<n; i++)
+			emptyBefore[i+1] = emptyBefore[i] + ((line[i] == Nonogram.EMPTY) ? 1 : 0);
+
+		// fw[j][i]: cells [0,i) can hold exactly the first j blocks
+		fw[0] = true;
+		for (int i=1; i<=n; i++)
+			fw[i] = fw[i-1] && (line[i-1] != Nonogram.FULL);
+		for (int j=1; j<=k; j++) {
+			int c   = nums[j-1];
+			int row = j*w;
+			fw[row] = false;
+			for (int i=1; i<=n; i++) {
+				boolean ok = fw[row+i-1] && (line[i-1] != Nonogram.FULL);
+				int a = i - c; // block j-1 occupying [a,i)
+				if (!ok && (a >= 0) && (emptyBefore[i] == emptyBefore[a])) {
+					if (j == 1)
+						ok = fw[a];
+					else
+						ok = (a >= 1) && (line[a-1] != Nonogram.FULL) && fw[(j-1)*w + a-1];
+				}
+				fw[row+i] = ok;
+			}
+		}
+		if (!fw[k*w + n])
+			return CONTRADICTION;
+
+		// bw[j][i]: cells [i,n) can hold exactly the blocks j..k-1
+		bw[k*w + n] = true;
+		for (int i=n-1; i>=0; i--)
+			bw[k*w + i] = bw[k*w + i+1] && (line[i] != Nonogram.FULL);
+		for (int j=k-1; j>=0; j--) {
+			int c   = nums[j];
+			int row = j*w;
+			bw[row+n] = false;
+			for (int i=n-1; i>=0; i--) {
+				boolean ok = bw[row+i+1] && (line[i] != Nonogram.FULL);
+				int e = i + c; // block j occupying [i,e)
+				if (!ok && (e <= n) && (emptyBefore[e] == emptyBefore[i]))
+					ok = rightOK(nums, line, j, e, w);
+				bw[row+i] = ok;
+			}
+		}
+
+		// count, for each cell, the valid block placements covering it (as a difference array)
+		for (int i=0; i<=n; i++)
+			cover[i] = 0;
+		for (int j=0; j<k; j++) {
+			int c = nums[j];
+			for (int a=0; a+c<=n; a++) {
+				int e = a + c;
+				if (emptyBefore[e] != emptyBefore[a])
+					continue;
+				boolean left;
+				if (j == 0)
+					left = fw[a];
+				else
+					left = (a >= 1) && (line[a-1] != Nonogram.FULL) && fw[j*w + a-1];
+				if (left && rightOK(nums, line, j, e, w)) {
+					cover[a]++;
+					cover[e]--;
+				}
+			}
+		}
+
+		// a cell can be EMPTY if the blocks before and after it fit either side
+		int changed = 0;
+		int covered = 0;
+		for (int x=0; x<n; x++) {
+			covered += cover[x];
+			boolean canFull  = covered > 0;
+			boolean canEmpty = false;
+			if (line[x] != Nonogram.FULL)
+				for (int j=0; j<=k && !canEmpty; j++)
+					canEmpty = fw[j*w + x] && bw[j*w + x+1];
+			if (!canFull && !canEmpty)
+				return CONTRADICTION; // cannot happen if fw[k][n] holds, but be safe
+			int state = canFull ? (canEmpty ? Nonogram.UNKNOWN : Nonogram.FULL) : Nonogram.EMPTY;
+			result[x] = (byte) state;
+		}
+		for (int x=0; x<n; x++) {
+			if ((line[x] == Nonogram.UNKNOWN) && (result[x] != Nonogram.UNKNOWN)) {
+				line[x] = result[x];
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Solve a line against a pattern, fixing every cell that has the same state in all placements.
+	 *
+	 * @param pat the pattern of contiguous full cells
+	 * @param line the cell states of the line, updated in place
+	 * @return the number of cells changed from UNKNOWN, or CONTRADICTION if no placement exists
+	 */
+	public int solve(NGPattern pat, byte[] line) {
+		if (pat == null)
+			throw new IllegalArgumentException("pat cannot be null");
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		if (line.length != pat.getMaxLen())
+			throw new IllegalArgumentException("line is incorrect length for pattern (" + line.length + "!=" + pat.getMaxLen()+")");
+		return solve(pat.nums(), line);
+	}
+
+	/**
+	 * Can the blocks after block j fit in [e,n), given block j ends just before e?
+	 */
+	private boolean rightOK(int[] nums, byte[] line, int j, int e, int w) {
+		int n = line.length;
+		int k = nums.length;
+		if (j == k-1)
+			return bw[k*w + e];
+		return (e < n) && (line[e] != Nonogram.FULL) && bw[(j+1)*w + e+1];
+	}
+
+	/**
+	 * Grow the work arrays to suit a line of n cells and k blocks
+	 */
+	private void ensureCapacity(int n, int k) {
+		int size = (k+1)*(n+1);
+		if (fw.length < size) {
+			fw = new boolean[size];
+			bw = new boolean[size];
+		}
+		if (cover.length < n+1) {
+			cover       = new int[n+1];
+			emptyBefore = new int[n+1];
+			result      = new byte[n+1];
+		}
+	}
+
+	/**
+	 * Returned by solve when the line cannot be completed to match the pattern
+	 */
+	public static final int CONTRADICTION = -1;
+
+	private boolean[] fw          = new boolean[0]; // prefix reachability, (k+1) x (n+1)
+	private boolean[] bw          = new boolean[0]; // suffix reachability, (k+1) x (n+1)
+	private int[]     cover       = new int[0];     // difference array of block coverage
+	private int[]     emptyBefore = new int[0];     // prefix counts of EMPTY cells
+	private byte[]    result      = new byte[0];    // deduced states before merging
+}
@@ -0,0 +1,92 @@
+package nonogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A randomised cross-check of the line solvers, for development (not part of the API).
+ * <p>
+ * Usage: java nonogram.LineSolverCheck [LINES [SEED]] checks BitLineSolver against LineSolver, and
+ * its validity and solution checks against NGPattern, on random lines of 1-200 cells, printing any
+ * line on which they disagree; the exit status is 1 if any did. Lines of up to REGEX_CHECK_LEN
+ * cells are also checked against the NGPattern regular expressions, which backtrack too much on
+ * longer lines.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+class LineSolverCheck {
+	/**
+	 * The entry point of the check (see the class description).
+	 *
+	 * @param args the number of lines to check (default 100000) and the random seed (default 1)
+	 */
+	public static void main(String[] args) {
+		int    lines = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		Random rnd   = new Random((args.length > 1) ? Long.parseLong(args[1]) : 1);
+		int    bad   = 0;
+		BitLineSolver bitSolver = new BitLineSolver();
+		LineSolver    dpSolver  = new LineSolver();
+		for (int n=0; n<lines; n++) {
+			// the clue of a random solution, with some cells known (and sometimes a wrong one)
+			int    length = 1 + rnd.nextInt(200);
+			byte[] line   = new byte[length];
+			List<Integer> blocks = new ArrayList<>();
+			int    run    = 0;
+			double density = rnd.nextDouble();
+			for (int i=0; i<=length; i++) {
+				if ((i < length) && (rnd.nextDouble() < density)) {
+					run++;
+				} else if (run > 0) {
+					blocks.add(run);
+					run = 0;
+				}
+				if (i < length)
+					line[i] = (byte) ((run > 0) ? Nonogram.FULL : Nonogram.EMPTY);
+			}
+			int[] nums = blocks.stream().mapToInt(Integer::intValue).toArray();
+			double known = rnd.nextDouble();
+			for (int i=0; i<length; i++)
+				if (rnd.nextDouble() >= known)
+					line[i] = Nonogram.UNKNOWN;
+			if (rnd.nextInt(4) == 0)
+				line[rnd.nextInt(length)] = (byte) rnd.nextInt(3);
+
+			BitLine bits     = new BitLine(line);
+			byte[]  dpLine   = line.clone();
+			byte[]  bitLine  = new byte[length];
+			int     dpCount  = dpSolver.solve(nums, dpLine);
+			int     bitCount = bitSolver.solve(nums, bits);
+			bits.getStates(bitLine);
+			boolean ok = (dpCount == bitCount) && ((dpCount == LineSolver.CONTRADICTION) || Arrays.equals(dpLine, bitLine));
+			BitLine orig = new BitLine(line);
+			ok &= bitSolver.isValid(nums, orig) == (dpCount != LineSolver.CONTRADICTION);
+			if (NGPattern.checkNums(nums) && (length >= Nonogram.MIN_SIZE)) {
+				NGPattern pat = new NGPattern(nums, length);
+				ok &= bitSolver.isValid(nums, orig) == pat.isValid(line);
+				ok &= bitSolver.isSolved(nums, orig) == pat.isSolved(line);
+				if (length <= REGEX_CHECK_LEN) {
+					StringBuilder seq = new StringBuilder();
+					for (byte state : line)
+						seq.append(state);
+					ok &= bitSolver.isValid(nums, orig) == seq.toString().matches(pat.getRegExValid());
+					ok &= bitSolver.isSolved(nums, orig) == seq.toString().matches(pat.getRegExSolved());
+				}
+			}
+			if (!ok) {
+				bad++;
+				System.out.println("mismatch: nums " + Arrays.toString(nums) + " line " + orig);
+			}
+		}
+		System.out.println(lines + " lines checked, " + bad + " mismatches");
+		if (bad > 0)
+			System.exit(1);
+	}
+
+	/**
+	 * The longest line checked against the regular expressions
+	 */
+	static final int REGEX_CHECK_LEN = 30;
+}
@@ -0,0 +1,16 @@
+package nonogram;
+
+/**
+ * The status of a row or column of a Nonogram puzzle against its pattern.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public enum LineStatus {
+	/** the cells cannot be completed to match the pattern */
+	INVALID,
+	/** the cells can still be completed to match the pattern, but do not match it yet */
+	VALID,
+	/** the FULL cells match the pattern */
+	SOLVED
+}
@@ -0,0 +1,432 @@
+package nonogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A journal of the moves made in a puzzle, for undo and redo.
+ * <p>
+ * Each cell change is packed into a long (see pack()): its row and column, its state before and
+ * after, and the id of the group it belongs to. A group is the set of cells changed by one user
+ * action (a click, a row or column move, a hint), and is undone or redone as a whole. The entries
+ * are kept in a ring buffer that grows as needed; if a capacity is given, the oldest groups are
+ * dropped to stay within it, so a long session cannot use unbounded memory.
+ * <p>
+ * The entries before the cursor can be undone and those after it redone; recording a new move
+ * discards any that could be redone.
+ * <p>
+ * If a JournalFile is set, every change recorded, undone or redone is also appended to it, so
+ * that the session can be recovered after a crash; a failure to write it is thrown as an
+ * UncheckedIOException.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class MoveJournal {
+	/**
+	 * Constructor, for a journal of unbounded size
+	 */
+	public MoveJournal() {
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity the most cell changes to keep (0 for no limit)
+	 */
+	public MoveJournal(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("capacity cannot be negative (" + capacity + ")");
+		this.capacity = capacity;
+		this.entries  = new long[(capacity == 0) ? INITIAL_SIZE : Math.min(INITIAL_SIZE, capacity)];
+	}
+
+	/**
+	 * Start a group: until the matching endGroup(), the changes recorded are undone and redone
+	 * together. Groups may be nested; the outermost one counts.
+	 */
+	public void beginGroup() {
+		if (groupDepth++ == 0)
+			openGroup();
+	}
+
+	/**
+	 * End a group
+	 */
+	public void endGroup() {
+		if (groupDepth == 0)
+			throw new NonogramException("endGroup without beginGroup");
+		groupDepth--;
+	}
+
+	/**
+	 * Record a cell change already made to the puzzle (as a group of its own, unless a group is open)
+	 *
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @param oldState the state before the change
+	 * @param newState the state after the change
+	 */
+	public void record(int row, int col, int oldState, int newState) {
+		if ((row < 0) || (row > MAX_INDEX))
+			throw new IllegalArgumentException("row invalid, must be 0 <= row <= " + MAX_INDEX);
+		if ((col < 0) || (col > MAX_INDEX))
+			throw new IllegalArgumentException("col invalid, must be 0 <= col <= " + MAX_INDEX);
+		if (!Cell.isValidState(oldState))
+			throw new IllegalArgumentException("invalid oldState (" + oldState + ")");
+		if (!Cell.isValidState(newState))
+			throw new IllegalArgumentException("invalid newState (" + newState + ")");
+		if (groupDepth == 0)
+			openGroup();
+		count = cursor; // the moves that could have been redone are lost
+		if ((capacity > 0) && (count == capacity))
+			dropOldest();
+		if (count == entries.length)
+			grow();
+		entries[(head + count) % entries.length] = pack(row, col, oldState, newState, group);
+		count++;
+		cursor = count;
+		log(row, col, oldState, newState);
+	}
+
+	/**
+	 * Record a cell change already made to the puzzle, taking the old state from the Assign's
+	 * previous state
+	 *
+	 * @param move the Assign
+	 */
+	public void record(Assign move) {
+		if (move == null)
+			throw new IllegalArgumentException("move cannot be null");
+		record(move.getRow(), move.getCol(), move.getPreviousState(), move.getState());
+	}
+
+	/**
+	 * Make a move in the puzzle and record it as one group
+	 *
+	 * @param puzzle the puzzle
+	 * @param move the Assign
+	 */
+	public void apply(Nonogram puzzle, Assign move) {
+		if (move == null)
+			throw new IllegalArgumentException("move cannot be null");
+		apply(puzzle, Collections.singletonList(move));
+	}
+
+	/**
+	 * Make a multi-cell move in the puzzle (notifying its listeners once) and record it as one
+	 * group. Cells already in the state given are not recorded.
+	 *
+	 * @param puzzle the puzzle
+	 * @param moves the Assigns
+	 */
+	public void apply(Nonogram puzzle, Collection<? extends Assign> moves) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		if (moves == null)
+			throw new IllegalArgumentException("moves cannot be null");
+		beginGroup();
+		puzzle.beginUpdate();
+		try {
+			for (Assign move : moves) {
+				int oldState = puzzle.getState(move.getRow(), move.getCol());
+				if (oldState == move.getState())
+					continue;
+				puzzle.setState(move);
+				record(move.getRow(), move.getCol(), oldState, move.getState());
+			}
+		} finally {
+			puzzle.endUpdate();
+			endGroup();
+		}
+	}
+
+	/**
+	 * Undo the last group of changes (notifying the puzzle's listeners once)
+	 *
+	 * @param puzzle the puzzle
+	 * @return the number of cells changed back (0 if there was nothing to undo)
+	 */
+	public int undo(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		if (cursor == 0)
+			return 0;
+		int id      = groupOf(entry(cursor-1));
+		int changed = 0;
+		puzzle.beginUpdate();
+		try {
+			while ((cursor > 0) && (groupOf(entry(cursor-1)) == id)) {
+				long e = entry(--cursor);
+				puzzle.setState(rowOf(e), colOf(e), oldStateOf(e));
+				log(rowOf(e), colOf(e), newStateOf(e), oldStateOf(e));
+				changed++;
+			}
+		} finally {
+			puzzle.endUpdate();
+		}
+		return changed;
+	}
+
+	/**
+	 * Redo the last group of changes undone (notifying the puzzle's listeners once)
+	 *
+	 * @param puzzle the puzzle
+	 * @return the number of cells changed again (0 if there was nothing to redo)
+	 */
+	public int redo(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		if (cursor == count)
+			return 0;
+		int id      = groupOf(entry(cursor));
+		int changed = 0;
+		puzzle.beginUpdate();
+		try {
+			while ((cursor < count) && (groupOf(entry(cursor)) == id)) {
+				long e = entry(cursor++);
+				puzzle.setState(rowOf(e), colOf(e), newStateOf(e));
+				log(rowOf(e), colOf(e), oldStateOf(e), newStateOf(e));
+				changed++;
+			}
+		} finally {
+			puzzle.endUpdate();
+		}
+		return changed;
+	}
+
+	/**
+	 * Is there a group of changes to undo?
+	 *
+	 * @return true if undo() would change something, otherwise false
+	 */
+	public boolean canUndo() {
+		return cursor > 0;
+	}
+
+	/**
+	 * Is there a group of changes to redo?
+	 *
+	 * @return true if redo() would change something, otherwise false
+	 */
+	public boolean canRedo() {
+		return cursor < count;
+	}
+
+	/**
+	 * Forget all the moves
+	 */
+	public void clear() {
+		head   = 0;
+		count  = 0;
+		cursor = 0;
+	}
+
+	/**
+	 * Set the journal file the changes are also written to
+	 *
+	 * @param file the journal file, or null for none
+	 */
+	public void setFile(JournalFile file) {
+		this.file = file;
+	}
+
+	/**
+	 * Retrieve the journal file the changes are also written to
+	 *
+	 * @return the journal file, or null if there is none
+	 */
+	public JournalFile getFile() {
+		return file;
+	}
+
+	/**
+	 * Write a checkpoint to the journal file, if there is one (after a change to the puzzle not
+	 * made through this journal, such as clearing it or loading moves)
+	 */
+	public void checkpoint() {
+		if (file == null)
+			return;
+		try {
+			file.checkpoint();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Write the changes not yet written to the journal file, if there is one, to the disk
+	 */
+	public void sync() {
+		if (file == null)
+			return;
+		try {
+			file.sync();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Retrieve the number of cell changes held (both those that can be undone and those that can be redone)
+	 *
+	 * @return the number of cell changes
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Retrieve the most cell changes kept
+	 *
+	 * @return the capacity (0 for no limit)
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Pack a cell change into a long: the new state in bits 0-1, the old state in bits 2-3, the
+	 * column in bits 4-23, the row in bits 24-43 and the group id in bits 44-63
+	 *
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @param oldState the state before the change
+	 * @param newState the state after the change
+	 * @param group the group id (only its low 20 bits are kept)
+	 * @return the packed change
+	 */
+	public static long pack(int row, int col, int oldState, int newState, int group) {
+		return newState | ((long) oldState << 2) | ((long) col << 4) | ((long) row << 24) | ((long) (group & MAX_INDEX) << 44);
+	}
+
+	/**
+	 * Retrieve the row of a packed change
+	 *
+	 * @param e the packed change
+	 * @return the row
+	 */
+	public static int rowOf(long e) {
+		return (int) (e >>> 24) & MAX_INDEX;
+	}
+
+	/**
+	 * Retrieve the column of a packed change
+	 *
+	 * @param e the packed change
+	 * @return the column
+	 */
+	public static int colOf(long e) {
+		return (int) (e >>> 4) & MAX_INDEX;
+	}
+
+	/**
+	 * Retrieve the state before a packed change
+	 *
+	 * @param e the packed change
+	 * @return the old state
+	 */
+	public static int oldStateOf(long e) {
+		return (int) (e >>> 2) & 3;
+	}
+
+	/**
+	 * Retrieve the state after a packed change
+	 *
+	 * @param e the packed change
+	 * @return the new state
+	 */
+	public static int newStateOf(long e) {
+		return (int) e & 3;
+	}
+
+	/**
+	 * Retrieve the group id of a packed change
+	 *
+	 * @param e the packed change
+	 * @return the group id
+	 */
+	public static int groupOf(long e) {
+		return (int) (e >>> 44);
+	}
+
+	/**
+	 * Append a change to the journal file, if there is one
+	 */
+	private void log(int row, int col, int oldState, int newState) {
+		if (file == null)
+			return;
+		try {
+			file.record(row, col, oldState, newState);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Start a new group id (ids wrap around, but neighbouring groups always differ)
+	 */
+	private void openGroup() {
+		group = (group + 1) & MAX_INDEX;
+	}
+
+	/**
+	 * The i-th entry from the oldest
+	 */
+	private long entry(int i) {
+		return entries[(head + i) % entries.length];
+	}
+
+	/**
+	 * Drop the oldest group to make room, or just the oldest entry if that group is the one being
+	 * recorded (a group larger than the capacity keeps only its latest changes)
+	 */
+	private void dropOldest() {
+		int id = groupOf(entry(0));
+		int n  = 1;
+		if (id != group)
+			while ((n < count) && (groupOf(entry(n)) == id))
+				n++;
+		head    = (head + n) % entries.length;
+		count  -= n;
+		cursor -= n;
+	}
+
+	/**
+	 * Double the buffer (up to the capacity), unwrapping the entries to start at 0
+	 */
+	private void grow() {
+		int    size = entries.length * 2;
+		if (capacity > 0)
+			size = Math.min(size, capacity);
+		long[] copy = new long[size];
+		for (int i=0; i<count; i++)
+			copy[i] = entry(i);
+		entries = copy;
+		head    = 0;
+	}
+
+	/**
+	 * The largest row or column that can be recorded
+	 */
+	public static final int MAX_INDEX = (1 << 20) - 1;
+
+	/**
+	 * A capacity suited to interactive play
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final int INITIAL_SIZE = 64;
+
+	private final int   capacity;             // the most entries kept, or 0 for no limit
+	private long[]      entries;              // the ring buffer of packed changes
+	private int         head       = 0;       // index in entries of the oldest change
+	private int         count      = 0;       // number of changes held
+	private int         cursor     = 0;       // changes before this can be undone, from it redone
+	private int         group      = 0;       // id of the current (or last) group
+	private int         groupDepth = 0;       // nesting of beginGroup()
+	private JournalFile file       = null;    // where the changes are also written, if anywhere
+}
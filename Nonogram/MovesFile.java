@@ -0,0 +1,93 @@
+package nonogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads and writes the cell states of a puzzle as a .mov file.
+ * <p>
+ * A .mov file is binary: a header (magic "NGM1", version, height, width and the puzzle's clue hash),
+ * then the state of every cell, row-major, packed four to a byte with the first cell in the low two
+ * bits. The older text form, one digit per cell (line breaks allowed), is still read: it is told
+ * apart by its first byte, which is a digit rather than the magic's 'N'.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class MovesFile {
+	private MovesFile() {
+	}
+
+	/**
+	 * Write the cell states of a puzzle to a .mov file
+	 *
+	 * @param path the file
+	 * @param puzzle the puzzle
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path path, Nonogram puzzle) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path cannot be null");
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		byte[] states = new byte[puzzle.getNumRows()*puzzle.getNumCols()];
+		puzzle.getStates(states);
+		ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + (states.length + 3)/4);
+		out.putInt(MAGIC).putInt(VERSION).putInt(puzzle.getNumRows()).putInt(puzzle.getNumCols())
+				.putLong(puzzle.getClueHash());
+		byte[] data = out.array();
+		for (int i=0; i<states.length; i++)
+			data[HEADER_SIZE + (i >> 2)] |= states[i] << ((i & 3) << 1);
+		Files.write(path, data);
+	}
+
+	/**
+	 * Set the cell states of a puzzle from a .mov file, binary or text, in one bulk update
+	 *
+	 * @param path the file
+	 * @param puzzle the puzzle, which must have the clues the file was written for
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void read(Path path, Nonogram puzzle) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path cannot be null");
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		byte[] data = Files.readAllBytes(path);
+		if ((data.length > 0) && (data[0] == (byte) (MAGIC >>> 24)))
+			puzzle.setStates(decode(data, puzzle, path));
+		else
+			puzzle.setStatesByString(new String(data, StandardCharsets.US_ASCII).replaceAll("\\s", ""));
+	}
+
+	/**
+	 * Unpack the states of a binary .mov file, checking its header against the puzzle
+	 */
+	private static byte[] decode(byte[] data, Nonogram puzzle, Path path) {
+		ByteBuffer in = ByteBuffer.wrap(data);
+		if ((data.length < HEADER_SIZE) || (in.getInt() != MAGIC))
+			throw new NonogramException("not a .mov file (" + path + ")");
+		int version = in.getInt();
+		if (version != VERSION)
+			throw new NonogramException("unsupported .mov version (" + version + ")");
+		int numRows = in.getInt();
+		int numCols = in.getInt();
+		if ((numRows != puzzle.getNumRows()) || (numCols != puzzle.getNumCols()) || (in.getLong() != puzzle.getClueHash()))
+			throw new NonogramException(".mov file is for a different puzzle (" + path + ")");
+		byte[] states = new byte[numRows*numCols];
+		if (data.length != HEADER_SIZE + (states.length + 3)/4)
+			throw new NonogramException(".mov file is " + data.length + " bytes, expected "
+					+ (HEADER_SIZE + (states.length + 3)/4) + " (" + path + ")");
+		for (int i=0; i<states.length; i++)
+			states[i] = (byte) ((data[HEADER_SIZE + (i >> 2)] >>> ((i & 3) << 1)) & 3);
+		return states; // an invalid state (3) is rejected by setStates()
+	}
+
+	/** "NGM1" */
+	static final int MAGIC       = 0x4E474D31;
+	static final int VERSION     = 1;
+	static final int HEADER_SIZE = 24; // magic, version, height, width, clue hash
+}
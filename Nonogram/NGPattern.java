@@ -5,6 +5,15 @@ import java.util.regex.Pattern;
 
 /**
  * A pattern for a cell constraint (either row or column) in a Nonogram puzzle.
+ * <p>
+ * The pattern is compiled once into a small automaton over the cell states. Its states form a chain,
+ * one for each cell of the shortest line matching the pattern (the full cells of the blocks and the
+ * single empty cells between them): state i means the first i of these have been matched, and the
+ * states at the start, after each gap and at the end may also take further empty cells. The set of
+ * states a line could be in is kept as bits, so a check is a single pass over the line of a few
+ * shifts and masks per cell, with no backtracking and (for patterns of up to 63 cells) no
+ * allocation. An UNKNOWN cell may be full or empty when checking validity, and is taken as empty
+ * when checking for a solution.
  * 
  * @author Dr Mark C. Sinclair
  * @version September 2022
@@ -26,6 +35,32 @@ public class NGPattern {
 		this.maxLen = maxLen;
 		if (minLen > maxLen)
 			throw new IllegalArgumentException("minimum length of nums (" + minLen + ") exceeds maxLen");
+		compileAutomaton();
+	}
+	
+	/**
+	 * Build the automaton: the chain of states 0..minLen, and for each state whether a full or an
+	 * empty cell leads into it from the state before, and whether it may take further empty cells
+	 */
+	private void compileAutomaton() {
+		int numStates = minLen + 1;
+		fullInto  = new long[(numStates + 63) >>> 6];
+		emptyInto = new long[fullInto.length];
+		emptyLoop = new long[fullInto.length];
+		int state = 0;
+		emptyLoop[0] |= 1L; // empty cells before the first block
+		for (int j=0; j<nums.length; j++) {
+			for (int i=0; i<nums[j]; i++) {
+				state++;
+				fullInto[state >>> 6] |= 1L << state;
+			}
+			if (j < nums.length-1) {
+				state++;
+				emptyInto[state >>> 6] |= 1L << state;
+				emptyLoop[state >>> 6] |= 1L << state; // further empty cells in the gap
+			}
+		}
+		emptyLoop[state >>> 6] |= 1L << state; // empty cells after the last block
 	}
 	
 	/**
@@ -55,6 +90,15 @@ public class NGPattern {
 		return Arrays.copyOf(nums, nums.length);
 	}
 	
+	/**
+	 * Retrieve the pattern of contiguous full cells without copying (for use by the line solver only)
+	 * 
+	 * @return the internal integer array, which must not be modified
+	 */
+	int[] nums() {
+		return nums;
+	}
+	
 	/**
 	 * Retrieve a regular expression that can be used to check a cell sequence for validity
 	 * 
@@ -118,9 +162,7 @@ public class NGPattern {
 			throw new IllegalArgumentException("seq cannot be null");
 		if (seq.length() != maxLen)
 			throw new IllegalArgumentException("seq is incorrect length for pattern (" + seq.length() + "!=" + maxLen+")");
-		if (valid == null)
-			compileRegExValid(); // causes valid Pattern to be compiled and assigned
-		return valid.matcher(seq).matches();
+		return matches(null, seq, false);
 	}
 	
 	/**
@@ -134,9 +176,94 @@ public class NGPattern {
 			throw new IllegalArgumentException("seq cannot be null");
 		if (seq.length() != maxLen)
 			throw new IllegalArgumentException("seq is incorrect length for pattern (" + seq.length() + "!=" + maxLen+")");
-		if (solved == null)
-			compileRegExSolved(); // causes solved Pattern to be compiled and assigned
-		return solved.matcher(seq).matches();
+		return matches(null, seq, true);
+	}
+	
+	/**
+	 * Check if the cell states of a line (of maxLen) are valid for the pattern
+	 * 
+	 * @param line the cell states (EMPTY, FULL or UNKNOWN)
+	 * @return true if the line is valid, otherwise false
+	 */
+	public boolean isValid(byte[] line) {
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		if (line.length != maxLen)
+			throw new IllegalArgumentException("line is incorrect length for pattern (" + line.length + "!=" + maxLen+")");
+		return matches(line, null, false);
+	}
+	
+	/**
+	 * Check if the cell states of a line (of maxLen) solve the pattern
+	 * 
+	 * @param line the cell states (EMPTY, FULL or UNKNOWN)
+	 * @return true if the line is a solution, otherwise false
+	 */
+	public boolean isSolved(byte[] line) {
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		if (line.length != maxLen)
+			throw new IllegalArgumentException("line is incorrect length for pattern (" + line.length + "!=" + maxLen+")");
+		return matches(line, null, true);
+	}
+	
+	/**
+	 * Run the automaton over a line, given either as states or as a sequence string
+	 * 
+	 * @param line the cell states, or null to use seq
+	 * @param seq the cell state sequence (used if line is null)
+	 * @param solved true to take UNKNOWN cells as EMPTY, false to let them be either
+	 * @return true if the line ends in the final state, otherwise false
+	 */
+	private boolean matches(byte[] line, String seq, boolean solved) {
+		if (fullInto.length == 1) {
+			long active = 1L; // the start state
+			for (int i=0; i<maxLen; i++) {
+				int state = (line != null) ? line[i] : seq.charAt(i) - '0';
+				if ((state < Nonogram.EMPTY) || (state > Nonogram.UNKNOWN))
+					return false; // as the regular expressions would
+				long next = 0;
+				if ((state == Nonogram.FULL) || ((state == Nonogram.UNKNOWN) && !solved))
+					next |= (active << 1) & fullInto[0];
+				if (state != Nonogram.FULL)
+					next |= ((active << 1) & emptyInto[0]) | (active & emptyLoop[0]);
+				if (next == 0)
+					return false;
+				active = next;
+			}
+			return ((active >>> minLen) & 1L) != 0;
+		}
+
+		// longer patterns: the same, a word at a time, high word first so the shift can be done in place
+		long[] active = SCRATCH.get();
+		if (active.length < fullInto.length) {
+			active = new long[fullInto.length];
+			SCRATCH.set(active);
+		}
+		int words = fullInto.length;
+		Arrays.fill(active, 0, words, 0L);
+		active[0] = 1L;
+		for (int i=0; i<maxLen; i++) {
+			int state = (line != null) ? line[i] : seq.charAt(i) - '0';
+			if ((state < Nonogram.EMPTY) || (state > Nonogram.UNKNOWN))
+				return false;
+			boolean canFull  = (state == Nonogram.FULL) || ((state == Nonogram.UNKNOWN) && !solved);
+			boolean canEmpty = state != Nonogram.FULL;
+			long    any      = 0;
+			for (int w=words-1; w>=0; w--) {
+				long shifted = (active[w] << 1) | ((w > 0) ? (active[w-1] >>> 63) : 0L);
+				long next    = 0;
+				if (canFull)
+					next |= shifted & fullInto[w];
+				if (canEmpty)
+					next |= (shifted & emptyInto[w]) | (active[w] & emptyLoop[w]);
+				active[w] = next;
+				any |= next;
+			}
+			if (any == 0)
+				return false;
+		}
+		return ((active[minLen >>> 6] >>> minLen) & 1L) != 0;
 	}
 	
   /**
@@ -216,9 +343,15 @@ public class NGPattern {
 	private static final String REGEX_EMPTY = "[" + Nonogram.EMPTY + Nonogram.UNKNOWN + "]";
 	private static final String REGEX_FULL  = "[" + Nonogram.FULL  + Nonogram.UNKNOWN + "]";
 	
-	private int[]   nums   = null;
-	private int     minLen = -1;   // minimum length of the pattern
-	private int     maxLen = -1;   // maximum length of the pattern (supplied)
-	private Pattern valid  = null; // regex to test sequence is valid
-	private Pattern solved = null; // regex to test sequence is solved
+	// the automaton's states for patterns of more than 63 cells, one array per thread
+	private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[0]);
+	
+	private int[]   nums      = null;
+	private int     minLen    = -1;   // minimum length of the pattern
+	private int     maxLen    = -1;   // maximum length of the pattern (supplied)
+	private Pattern valid     = null; // regex to test sequence is valid
+	private Pattern solved    = null; // regex to test sequence is solved
+	private long[]  fullInto  = null; // the states a full cell leads into from the state before
+	private long[]  emptyInto = null; // the states an empty cell leads into from the state before
+	private long[]  emptyLoop = null; // the states that may take further empty cells
 }
@@ -1,6 +1,7 @@
 package nonogram;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A Nonogram puzzle.
@@ -8,11 +9,12 @@ import java.util.*;
  * @author Dr Mark C. Sinclair
  * @version September 2022
  */
-@SuppressWarnings("deprecation")
-public class Nonogram extends Observable {
+public class Nonogram {
 	/**
 	 * Constructor from a scanner (.non file format)
    * see https://github.com/mikix/nonogram-db/blob/master/FORMAT.md
+   * The goal, if present, is kept as packed bits (see getGoal()), and the other keys (title, by,
+   * copyright and so on) as metadata (see getMetadata()).
 	 * 
 	 * @param scnr the scanner
 	 */
@@ -21,9 +23,11 @@ public class Nonogram extends Observable {
 		ArrayList<NGPattern> colNGPatterns = new ArrayList<>();
 		boolean onRows = false;
 		boolean onCols = false;
+		String  goalString = null;
 		while (scnr.hasNextLine()) {
 			String line = scnr.nextLine();
-			if (line.startsWith("width")) {
+			String key  = firstWord(line);
+			if (key.equals("width")) {
 				String[] fields = line.split("\\W");
 				try {
 					numCols = Integer.parseInt(fields[1]);
@@ -32,7 +36,7 @@ public class Nonogram extends Observable {
 				}
 				if (numCols < MIN_SIZE)
 					throw new NonogramException("width cannot be shorter than " + MIN_SIZE);
-			} else if (line.startsWith("height")) {
+			} else if (key.equals("height")) {
 				String[] fields = line.split("\\W");
 				try {
 					numRows = Integer.parseInt(fields[1]);
@@ -41,12 +45,24 @@ public class Nonogram extends Observable {
 				}	
 				if (numRows < MIN_SIZE)
 					throw new NonogramException("height cannot be shorter than " + MIN_SIZE);
-			} else if (line.startsWith("rows")) {
+			} else if (key.equals("rows")) {
 				onRows = true;
 				onCols = false;
-			} else if (line.startsWith("columns")) {
+			} else if (key.equals("columns")) {
 				onCols = true;
 				onRows = false;
+			} else if (key.equals("goal")) {
+				goalString = line.substring(key.length());
+				onRows     = false;
+				onCols     = false;
+			} else if (!key.isEmpty() && Character.isLetter(key.charAt(0))) {
+				try {
+					setMetadata(key, unquote(line.substring(key.length())));
+				} catch (IllegalArgumentException e) {
+					throw new NonogramException(e.getMessage());
+				}
+				onRows = false;
+				onCols = false;
 			} else if (onRows && (rowNGPatterns.size() < numRows)) {
 				String[]  fields = line.split(",");
 				int[]     nums   = new int[fields.length];
@@ -83,31 +99,42 @@ public class Nonogram extends Observable {
 		if (colNGPatterns.size() != numCols)
 			throw new NonogramException("incorrect number of cols ("+colNGPatterns.size()+")");
 		
-		// create grid of cells
-		cells = new Cell[numRows][numCols];
-		for (int row=0; row<numRows; row++)
-			for (int col=0; col<numCols; col++)
-				cells[row][col] = new Cell(this, row, col);
-		
-		// create row constraints
-		rows            = new Constraint[numRows];
-		Cell[] rowCells = new Cell[numCols];
-		for (int row=0; row<numRows; row++) {
-			for (int col=0; col<numCols; col++)
-				rowCells[col] = cells[row][col];
-			rows[row] = new Constraint(rowNGPatterns.get(row), rowCells);
-		}
-		
-		// create column constraints
-		cols            = new Constraint[numCols];
-		Cell[] colCells = new Cell[numRows];
-		for (int col=0; col<numCols; col++) {
-			for (int row=0; row<numRows; row++)
-				colCells[row] = cells[row][col];
-			cols[col] = new Constraint(colNGPatterns.get(col), colCells);
+		build(rowNGPatterns, colNGPatterns);
+		if (goalString != null) {
+			goal = parseGoal(goalString);
+			String mismatch = findGoalMismatch(goal);
+			if (mismatch != null)
+				throw new NonogramException("goal does not match the clues of " + mismatch);
+			countGoalDiffs();
 		}
 	}
 	
+	/**
+	 * Constructor from the patterns of the rows and columns
+	 * 
+	 * @param rowNums the pattern of contiguous full cells of each row
+	 * @param colNums the pattern of contiguous full cells of each column
+	 */
+	public Nonogram(int[][] rowNums, int[][] colNums) {
+		if (rowNums == null)
+			throw new IllegalArgumentException("rowNums cannot be null");
+		if (colNums == null)
+			throw new IllegalArgumentException("colNums cannot be null");
+		if (rowNums.length < MIN_SIZE)
+			throw new IllegalArgumentException("height cannot be shorter than " + MIN_SIZE);
+		if (colNums.length < MIN_SIZE)
+			throw new IllegalArgumentException("width cannot be shorter than " + MIN_SIZE);
+		numRows = rowNums.length;
+		numCols = colNums.length;
+		ArrayList<NGPattern> rowNGPatterns = new ArrayList<>();
+		ArrayList<NGPattern> colNGPatterns = new ArrayList<>();
+		for (int row=0; row<numRows; row++)
+			rowNGPatterns.add(new NGPattern(rowNums[row], numCols));
+		for (int col=0; col<numCols; col++)
+			colNGPatterns.add(new NGPattern(colNums[col], numRows));
+		build(rowNGPatterns, colNGPatterns);
+	}
+	
 	/**
 	 * Retrieve the number of rows
 	 * 
@@ -138,11 +165,88 @@ public class Nonogram extends Observable {
 			throw new IllegalArgumentException("row invalid, must be 0 <= row < " + numRows);
 		if ((col < 0)  || (col >= numCols))
 			throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
-		return cells[row][col].getState();
+		return states[row*numCols + col];
+	}
+	
+	/**
+	 * Copy the states of all the cells, row by row, into an array
+	 * 
+	 * @param dest the array to fill, of numRows*numCols; cell (row,col) goes to index row*numCols + col
+	 */
+	public void getStates(byte[] dest) {
+		if (dest == null)
+			throw new IllegalArgumentException("dest cannot be null");
+		if (dest.length != states.length)
+			throw new IllegalArgumentException("dest must be " + states.length + " long (" + dest.length + ")");
+		System.arraycopy(states, 0, dest, 0, states.length);
+	}
+	
+	/**
+	 * Set the states of all the cells from an array, row by row, notifying listeners once
+	 * 
+	 * @param src the states, of numRows*numCols; cell (row,col) is at index row*numCols + col
+	 */
+	public void setStates(byte[] src) {
+		if (src == null)
+			throw new IllegalArgumentException("src cannot be null");
+		if (src.length != states.length)
+			throw new IllegalArgumentException("src must be " + states.length + " long (" + src.length + ")");
+		for (int i=0; i<src.length; i++)
+			if (!Cell.isValidState(src[i]))
+				throw new IllegalArgumentException("invalid state (" + src[i] + ") in src[" + i + "]");
+		beginUpdate();
+		try {
+			for (int row=0, i=0; row<numRows; row++)
+				for (int col=0; col<numCols; col++, i++)
+					if (states[i] != src[i])
+						setCell(row, col, src[i]);
+		} finally {
+			endUpdate();
+		}
 	}
 	
 	/**
-	 * Set the state of an individual cell, notifying observers
+	 * Retrieve the cell states without copying (for use by the constraints only)
+	 * 
+	 * @return the internal array, row by row, which must not be modified
+	 */
+	byte[] states() {
+		return states;
+	}
+	
+	/**
+	 * Retrieve the packed FULL cells without copying (for use by the constraints only)
+	 * 
+	 * @return the internal words, bit row*numCols+col, which must not be modified
+	 */
+	long[] fullBits() {
+		return fullBits;
+	}
+	
+	/**
+	 * Retrieve the packed EMPTY cells without copying (for use by the constraints only)
+	 * 
+	 * @return the internal words, bit row*numCols+col, which must not be modified
+	 */
+	long[] emptyBits() {
+		return emptyBits;
+	}
+	
+	/**
+	 * Retrieve a cell, as a view of the puzzle's state for that position (cells are not stored,
+	 * so a new view is returned each time)
+	 * 
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @return the cell
+	 */
+	public Cell getCell(int row, int col) {
+		return new Cell(this, row, col);
+	}
+	
+	/**
+	 * Set the state of an individual cell, notifying listeners (at once, or when the enclosing
+	 * update ends; see beginUpdate())
 	 * 
 	 * @param row the cell row
 	 * @param col the cell column
@@ -155,10 +259,79 @@ public class Nonogram extends Observable {
 			throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
 		if (!Cell.isValidState(state))
 			throw new IllegalArgumentException("invalid state (" + state + ")");
-		cells[row][col].setState(state);
-		trace("notifyObservers: row: "+row+"; col : "+col+"; state: "+state);
-		setChanged();
-		notifyObservers(cells[row][col]);
+		setCell(row, col, state);
+		trace("setState: row: "+row+"; col : "+col+"; state: "+state);
+		if (updateDepth == 0)
+			fireChange();
+	}
+	
+	/**
+	 * Set the states of many cells, notifying listeners once
+	 * 
+	 * @param moves the Assigns
+	 */
+	public void setStates(Assign... moves) {
+		if (moves == null)
+			throw new IllegalArgumentException("moves cannot be null");
+		setStates(Arrays.asList(moves));
+	}
+	
+	/**
+	 * Set the states of many cells, notifying listeners once
+	 * 
+	 * @param moves the Assigns
+	 */
+	public void setStates(Collection<? extends Assign> moves) {
+		if (moves == null)
+			throw new IllegalArgumentException("moves cannot be null");
+		beginUpdate();
+		try {
+			for (Assign move : moves)
+				setState(move);
+		} finally {
+			endUpdate();
+		}
+	}
+	
+	/**
+	 * Start a bulk update: until the matching endUpdate(), changes to cells are collected rather
+	 * than notified. Updates may be nested; listeners are notified when the outermost one ends.
+	 */
+	public void beginUpdate() {
+		updateDepth++;
+	}
+	
+	/**
+	 * End a bulk update, notifying listeners once of the rows and columns changed during it (if any)
+	 * and of the lines whose status changed
+	 */
+	public void endUpdate() {
+		if (updateDepth == 0)
+			throw new NonogramException("endUpdate without beginUpdate");
+		if (--updateDepth == 0)
+			fireChange();
+	}
+	
+	/**
+	 * Add a listener to be notified of changes to the cells and of changes to the status of the
+	 * rows and columns. A listener already added is not added again.
+	 * 
+	 * @param listener the listener
+	 */
+	public void addListener(NonogramListener listener) {
+		if (listener == null)
+			throw new IllegalArgumentException("listener cannot be null");
+		listeners.addIfAbsent(listener);
+	}
+	
+	/**
+	 * Remove a listener
+	 * 
+	 * @param listener the listener
+	 * @return true if the listener had been added, otherwise false
+	 */
+	public boolean removeListener(NonogramListener listener) {
+		return listeners.remove(listener);
 	}
 	
 	/**
@@ -172,13 +345,63 @@ public class Nonogram extends Observable {
     setState(move.getRow(), move.getCol(), move.getState());
 	}
 	
+	/**
+	 * Set the state of a cell, keeping the row and column constraints in step (the position and
+	 * state must already have been checked; listeners are not notified)
+	 * 
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @param state the new state
+	 */
+	private void setCell(int row, int col, int state) {
+		if (!dirtyRow[row]) {
+			dirtyRow[row] = true;
+			dirtyRows[numDirtyRows++] = row;
+		}
+		if (!dirtyCol[col]) {
+			dirtyCol[col] = true;
+			dirtyCols[numDirtyCols++] = col;
+		}
+		numDirtyCells++;
+		if (!staleRow[row]) {
+			staleRow[row] = true;
+			staleRows[numStaleRows++] = row;
+			if (rows[row].getStatus() == LineStatus.SOLVED)
+				solvedLines--;
+		}
+		if (!staleCol[col]) {
+			staleCol[col] = true;
+			staleCols[numStaleCols++] = col;
+			if (cols[col].getStatus() == LineStatus.SOLVED)
+				solvedLines--;
+		}
+		int  idx = row*numCols + col;
+		long bit = 1L << idx;
+		states[idx] = (byte) state;
+		if (goal != null) {
+			boolean wasWrong = ((fullBits[idx >>> 6] ^ goal[idx >>> 6]) & bit) != 0;
+			boolean isWrong  = (state == FULL) != ((goal[idx >>> 6] & bit) != 0);
+			if (wasWrong != isWrong)
+				goalDiffs += isWrong ? 1 : -1;
+		}
+		fullBits[idx >>> 6]  = (state == FULL)  ? (fullBits[idx >>> 6]  | bit) : (fullBits[idx >>> 6]  & ~bit);
+		emptyBits[idx >>> 6] = (state == EMPTY) ? (emptyBits[idx >>> 6] | bit) : (emptyBits[idx >>> 6] & ~bit);
+		rows[row].cellChanged();
+		cols[col].cellChanged();
+	}
+	
 	/**
 	 * Clear all the cells in the puzzle (set to UNKNOWN)
 	 */
 	public void clear() {
-		for (int row=0; row<numRows; row++)
-			for (int col=0; col<numCols; col++)
-				setState(row, col, UNKNOWN);
+		beginUpdate();
+		try {
+			for (int row=0; row<numRows; row++)
+				for (int col=0; col<numCols; col++)
+					setState(row, col, UNKNOWN);
+		} finally {
+			endUpdate();
+		}
 	}
 	
 	/**
@@ -205,6 +428,26 @@ public class Nonogram extends Observable {
 		return cols[col].getNums();
 	}
 	
+	/**
+	 * Retrieve a 64-bit hash of the dimensions and clues (FNV-1a), to check that saved cell states
+	 * belong to this puzzle
+	 * 
+	 * @return the clue hash
+	 */
+	public long getClueHash() {
+		long hash = FNV_OFFSET;
+		hash = (hash ^ numRows) * FNV_PRIME;
+		hash = (hash ^ numCols) * FNV_PRIME;
+		for (Constraint[] lines : new Constraint[][] { rows, cols }) {
+			for (Constraint line : lines) {
+				for (int num : line.getNums())
+					hash = (hash ^ num) * FNV_PRIME;
+				hash = (hash ^ -1) * FNV_PRIME; // end of the line's clue
+			}
+		}
+		return hash;
+	}
+	
 	/**
 	 * Retrieve the cell states for a given row as a sequence string
 	 * 
@@ -241,20 +484,41 @@ public class Nonogram extends Observable {
 			throw new IllegalArgumentException("s cannot be empty");
 		if (s.length() != numRows*numCols)
 			throw new IllegalArgumentException("s must be " + numRows*numCols + " chars long (" + s.length() + ")");
-		for (int row=0; row<numRows; row++) {
-			for (int col=0; col<numCols; col++) {
-				int idx   = row*numCols + col;
-				int state = Nonogram.UNKNOWN;
-				try {
-					state = Integer.parseInt(s.substring(idx, idx+1));
-				} catch (NumberFormatException e) {
-					throw new IllegalArgumentException("s contains non number (" + s.charAt(idx) + ") in s["+ idx +"]");
-				}
-				if (!Cell.isValidState(state))
-					throw new IllegalArgumentException("invalid state (" + state + ") in s["+ idx +"]");
-				cells[row][col].setState(state);
-			}
+		byte[] src = new byte[s.length()];
+		for (int idx=0; idx<src.length; idx++) {
+			char c = s.charAt(idx);
+			if ((c < '0') || (c > '9'))
+				throw new IllegalArgumentException("s contains non number (" + c + ") in s["+ idx +"]");
+			if (!Cell.isValidState(c - '0'))
+				throw new IllegalArgumentException("invalid state (" + (c - '0') + ") in s["+ idx +"]");
+			src[idx] = (byte) (c - '0');
 		}
+		setStates(src);
+	}
+	
+	/**
+	 * Retrieve the status of a row, as last notified to the listeners (it is brought up to date
+	 * when a change is notified, so within a bulk update it may lag the cells)
+	 * 
+	 * @param row the desired row
+	 * @return SOLVED, VALID or INVALID
+	 */
+	public LineStatus getRowStatus(int row) {
+		if ((row < 0)  || (row >= numRows))
+			throw new IllegalArgumentException("row invalid, must be 0 <= row < " + numRows);
+		return rowStatus[row];
+	}
+	
+	/**
+	 * Retrieve the status of a column, as last notified to the listeners (see getRowStatus())
+	 * 
+	 * @param col the desired column
+	 * @return SOLVED, VALID or INVALID
+	 */
+	public LineStatus getColStatus(int col) {
+		if ((col < 0)  || (col >= numCols))
+			throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
+		return colStatus[col];
 	}
 	
 	/**
@@ -306,27 +570,166 @@ public class Nonogram extends Observable {
 	}
 	
 	/**
-	 * Are all rows and columns, and therefore the whole puzzle, solved?
+	 * Are all rows and columns, and therefore the whole puzzle, solved? A puzzle whose FULL cells
+	 * match its goal is solved at once (the goal is checked against the clues when it is set);
+	 * otherwise the lines are checked, so another solution of a puzzle with several is accepted.
+	 * Both are kept up to date as the cells change (the count of solved lines, and of the cells
+	 * that differ from the goal), so this takes constant time apart from checking again the few
+	 * lines changed since it was last called.
 	 * 
 	 * @return true if all rows and coplumns are solved, otherwise false
 	 */
 	public boolean isSolved() {
-		for (int row=0; row<numRows; row++)
-			if (!rows[row].isSolved())
-				return false;
-		for (int col=0; col<numCols; col++)
-			if (!cols[col].isSolved())
-				return false;
-		return true;
+		if ((goal != null) && (goalDiffs == 0))
+			return true;
+		refreshSolvedLines();
+		return solvedLines == numRows + numCols;
+	}
+	
+	/**
+	 * Does the puzzle have a goal (its intended solution)?
+	 * 
+	 * @return true if there is a goal, otherwise false
+	 */
+	public boolean hasGoal() {
+		return goal != null;
+	}
+	
+	/**
+	 * Retrieve the goal as packed bits: cell (row,col) is FULL in the goal if bit (row*numCols + col)
+	 * is set, where bit i is bit (i % 64) of word i/64
+	 * 
+	 * @return the goal bits (a copy), or null if there is no goal
+	 */
+	public long[] getGoal() {
+		return (goal == null) ? null : goal.clone();
+	}
+	
+	/**
+	 * Set the goal from packed bits (see getGoal())
+	 * 
+	 * @param goal the goal bits, or null for none; it must solve the clues
+	 */
+	public void setGoal(long[] goal) {
+		if (goal == null) {
+			this.goal = null;
+			return;
+		}
+		int numCells = numRows*numCols;
+		if (goal.length != (numCells + 63) >>> 6)
+			throw new IllegalArgumentException("goal must have " + ((numCells + 63) >>> 6) + " words (" + goal.length + ")");
+		if (((numCells & 63) != 0) && ((goal[goal.length-1] >>> (numCells & 63)) != 0))
+			throw new IllegalArgumentException("goal has bits set beyond the last cell");
+		String mismatch = findGoalMismatch(goal);
+		if (mismatch != null)
+			throw new IllegalArgumentException("goal does not match the clues of " + mismatch);
+		this.goal = goal.clone();
+		countGoalDiffs();
+	}
+	
+	/**
+	 * Is a cell a mistake, i.e. known and different from the goal?
+	 * 
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @return true if the cell is a mistake, otherwise false (including when there is no goal)
+	 */
+	public boolean isMistake(int row, int col) {
+		if ((row < 0)  || (row >= numRows))
+			throw new IllegalArgumentException("row invalid, must be 0 <= row < " + numRows);
+		if ((col < 0)  || (col >= numCols))
+			throw new IllegalArgumentException("col invalid, must be 0 <= col < " + numCols);
+		if (goal == null)
+			return false;
+		int idx = row*numCols + col;
+		return (mistakeWord(idx >>> 6) & (1L << idx)) != 0;
+	}
+	
+	/**
+	 * Count the cells that are known and different from the goal
+	 * 
+	 * @return the number of mistakes (0 if there is no goal)
+	 */
+	public int countMistakes() {
+		if (goal == null)
+			return 0;
+		int count = 0;
+		for (int i=0; i<goal.length; i++)
+			count += Long.bitCount(mistakeWord(i));
+		return count;
+	}
+	
+	/**
+	 * Retrieve a metadata value, such as "title", "by" (the author), "copyright" or "license"
+	 * 
+	 * @param key the key
+	 * @return the value, or null if the key is not present
+	 */
+	public String getMetadata(String key) {
+		return metadata.get(key);
+	}
+	
+	/**
+	 * Retrieve all the metadata, in the order it was read or set
+	 * 
+	 * @return the metadata (unmodifiable)
+	 */
+	public Map<String, String> getMetadata() {
+		return Collections.unmodifiableMap(metadata);
+	}
+	
+	/**
+	 * Set a metadata value
+	 * 
+	 * @param key the key (a word, not one of width, height, rows, columns or goal)
+	 * @param value the value (without line breaks or double quotes), or null to remove the key
+	 */
+	public void setMetadata(String key, String value) {
+		if ((key == null) || key.isEmpty() || !Character.isLetter(key.charAt(0)))
+			throw new IllegalArgumentException("key must start with a letter (" + key + ")");
+		for (int i=0; i<key.length(); i++)
+			if (Character.isWhitespace(key.charAt(i)))
+				throw new IllegalArgumentException("key cannot contain white space (" + key + ")");
+		for (String reserved : RESERVED_KEYS)
+			if (key.equals(reserved))
+				throw new IllegalArgumentException("key cannot be " + reserved);
+		if ((value != null) && ((value.indexOf('\n') >= 0) || (value.indexOf('\r') >= 0)))
+			throw new IllegalArgumentException("value cannot contain a line break");
+		if ((value != null) && (value.indexOf('"') >= 0))
+			throw new IllegalArgumentException("value cannot contain a double quote (" + value + ")");
+		if (value == null)
+			metadata.remove(key);
+		else
+			metadata.put(key, value);
+	}
+	
+	/**
+	 * Retrieve the title
+	 * 
+	 * @return the title, or null if there is none
+	 */
+	public String getTitle() {
+		return metadata.get("title");
+	}
+	
+	/**
+	 * Retrieve the author (the "by" key)
+	 * 
+	 * @return the author, or null if there is none
+	 */
+	public String getAuthor() {
+		return metadata.get("by");
 	}
 	
   /**
-   * String representation of the puzzle in .non file form
+   * String representation of the puzzle in .non file form, including the metadata and goal
    * 
    * @return the string representation
    */
 	public String toStringAsNonFile() {
 		StringBuffer sb = new StringBuffer();
+		for (Map.Entry<String, String> entry : metadata.entrySet())
+			sb.append(entry.getKey() + " \"" + entry.getValue() + "\"\n");
 		sb.append("width "  + numCols + "\n");
 		sb.append("height " + numRows + "\n");
 		sb.append("\n");
@@ -335,9 +738,15 @@ public class Nonogram extends Observable {
 			sb.append(rows[row].getNumsForNon() + "\n");
 		sb.append("\n");
 		sb.append("columns\n");
-		for (int col=0; col<numRows; col++)
+		for (int col=0; col<numCols; col++)
 			sb.append(cols[col].getNumsForNon() + "\n");
 		sb.append("\n");
+		if (goal != null) {
+			sb.append("goal \"");
+			for (int idx=0; idx<numRows*numCols; idx++)
+				sb.append(((goal[idx >>> 6] & (1L << idx)) != 0) ? '1' : '0');
+			sb.append("\"\n\n");
+		}
 		return sb.toString();
 	}
 	
@@ -351,17 +760,250 @@ public class Nonogram extends Observable {
 			System.out.println("trace: " + s);
 	}
 	
+	/**
+	 * Create the cell states and the row and column constraints
+	 */
+	private void build(List<NGPattern> rowNGPatterns, List<NGPattern> colNGPatterns) {
+		// packed FULL and EMPTY cells, all UNKNOWN to begin with
+		fullBits  = new long[(numRows*numCols + 63) >>> 6];
+		emptyBits = new long[fullBits.length];
+		
+		// rows and columns changed since listeners were last notified
+		dirtyRow  = new boolean[numRows];
+		dirtyCol  = new boolean[numCols];
+		dirtyRows = new int[numRows];
+		dirtyCols = new int[numCols];
+		
+		// the cell states, row by row, all UNKNOWN to begin with
+		states = new byte[numRows*numCols];
+		Arrays.fill(states, (byte) UNKNOWN);
+		
+		// create row constraints, each viewing a row of the states
+		rows = new Constraint[numRows];
+		for (int row=0; row<numRows; row++)
+			rows[row] = new Constraint(rowNGPatterns.get(row), this, true, row);
+		
+		// create column constraints, each viewing a column of the states
+		cols = new Constraint[numCols];
+		for (int col=0; col<numCols; col++)
+			cols[col] = new Constraint(colNGPatterns.get(col), this, false, col);
+		
+		// line statuses, so that listeners hear only of changes to them
+		rowStatus = new LineStatus[numRows];
+		for (int row=0; row<numRows; row++)
+			rowStatus[row] = rows[row].getStatus();
+		colStatus = new LineStatus[numCols];
+		for (int col=0; col<numCols; col++)
+			colStatus[col] = cols[col].getStatus();
+		
+		// lines changed since the solved lines were last counted
+		staleRow  = new boolean[numRows];
+		staleCol  = new boolean[numCols];
+		staleRows = new int[numRows];
+		staleCols = new int[numCols];
+		solvedLines = 0;
+		for (LineStatus status : rowStatus)
+			if (status == LineStatus.SOLVED)
+				solvedLines++;
+		for (LineStatus status : colStatus)
+			if (status == LineStatus.SOLVED)
+				solvedLines++;
+	}
+	
+	/**
+	 * Add the lines changed since the last call that are now solved back into the count of solved
+	 * lines (each was taken out of it, if solved, when it first changed)
+	 */
+	private void refreshSolvedLines() {
+		for (int i=0; i<numStaleRows; i++) {
+			int row = staleRows[i];
+			staleRow[row] = false;
+			if (rows[row].getStatus() == LineStatus.SOLVED)
+				solvedLines++;
+		}
+		for (int i=0; i<numStaleCols; i++) {
+			int col = staleCols[i];
+			staleCol[col] = false;
+			if (cols[col].getStatus() == LineStatus.SOLVED)
+				solvedLines++;
+		}
+		numStaleRows = 0;
+		numStaleCols = 0;
+	}
+	
+	/**
+	 * Find the first line whose FULL cells in a goal do not match its clue
+	 * 
+	 * @return the line (e.g. "row 3"), or null if the goal solves every clue
+	 */
+	private String findGoalMismatch(long[] goal) {
+		for (int row=0; row<numRows; row++)
+			if (!goalMatches(goal, rows[row].getNums(), row*numCols, 1, numCols))
+				return "row " + row;
+		for (int col=0; col<numCols; col++)
+			if (!goalMatches(goal, cols[col].getNums(), col, numCols, numRows))
+				return "col " + col;
+		return null;
+	}
+	
+	/**
+	 * Do the runs of FULL cells of a line of a goal match a clue?
+	 */
+	private static boolean goalMatches(long[] goal, int[] nums, int offset, int stride, int length) {
+		int j   = 0;
+		int run = 0;
+		for (int i=0, idx=offset; i<=length; i++, idx+=stride) {
+			if ((i < length) && ((goal[idx >>> 6] & (1L << idx)) != 0)) {
+				run++;
+			} else if (run > 0) {
+				if ((j >= nums.length) || (nums[j] != run))
+					return false;
+				j++;
+				run = 0;
+			}
+		}
+		return j == nums.length;
+	}
+	
+	/**
+	 * Count the cells whose FULL state differs from the goal
+	 */
+	private void countGoalDiffs() {
+		goalDiffs = 0;
+		for (int i=0; i<goal.length; i++)
+			goalDiffs += Long.bitCount(fullBits[i] ^ goal[i]);
+	}
+	
+	/**
+	 * Notify listeners of the rows and columns changed since the last notification, and of the
+	 * changes to their status
+	 */
+	private void fireChange() {
+		if (numDirtyCells == 0)
+			return;
+		// copied, as a listener may itself change cells
+		int[]          changedRows = Arrays.copyOf(dirtyRows, numDirtyRows);
+		int[]          changedCols = Arrays.copyOf(dirtyCols, numDirtyCols);
+		NonogramChange change      = new NonogramChange(changedRows, changedCols, numDirtyCells);
+		for (int row : changedRows)
+			dirtyRow[row] = false;
+		for (int col : changedCols)
+			dirtyCol[col] = false;
+		numDirtyRows  = 0;
+		numDirtyCols  = 0;
+		numDirtyCells = 0;
+		
+		for (NonogramListener listener : listeners)
+			listener.cellsChanged(this, change);
+		for (int row : changedRows) {
+			LineStatus status = rows[row].getStatus();
+			if (status != rowStatus[row]) {
+				LineStatus old = rowStatus[row];
+				rowStatus[row] = status;
+				for (NonogramListener listener : listeners)
+					listener.lineStatusChanged(this, true, row, old, status);
+			}
+		}
+		for (int col : changedCols) {
+			LineStatus status = cols[col].getStatus();
+			if (status != colStatus[col]) {
+				LineStatus old = colStatus[col];
+				colStatus[col] = status;
+				for (NonogramListener listener : listeners)
+					listener.lineStatusChanged(this, false, col, old, status);
+			}
+		}
+	}
+	
+	/**
+	 * The cells of word i that are known and differ from the goal
+	 */
+	private long mistakeWord(int i) {
+		return (fullBits[i] & ~goal[i]) | (emptyBits[i] & goal[i]);
+	}
+	
+	/**
+	 * Parse a goal string of 0s and 1s (other characters, such as quotes, are ignored)
+	 */
+	private long[] parseGoal(String s) {
+		int    numCells = numRows*numCols;
+		long[] bits     = new long[(numCells + 63) >>> 6];
+		int    n        = 0;
+		for (int i=0; i<s.length(); i++) {
+			char c = s.charAt(i);
+			if ((c != '0') && (c != '1'))
+				continue;
+			if (n == numCells)
+				throw new NonogramException("goal has more than " + numCells + " cells");
+			if (c == '1')
+				bits[n >>> 6] |= 1L << n;
+			n++;
+		}
+		if (n != numCells)
+			throw new NonogramException("goal has " + n + " cells, expected " + numCells);
+		return bits;
+	}
+	
+	/**
+	 * The first word of a line, up to the first white space (the key of a .non line)
+	 */
+	private static String firstWord(String line) {
+		int end = 0;
+		while ((end < line.length()) && !Character.isWhitespace(line.charAt(end)))
+			end++;
+		return line.substring(0, end);
+	}
+	
+	/**
+	 * Strip white space and surrounding quotes from a metadata value
+	 */
+	private static String unquote(String s) {
+		s = s.trim();
+		if ((s.length() >= 2) && (s.charAt(0) == '"') && (s.charAt(s.length()-1) == '"'))
+			s = s.substring(1, s.length()-1);
+		return s;
+	}
+	
 	public static final int MIN_SIZE = 5;
 	
 	public static final int EMPTY   = 0;
 	public static final int FULL    = 1;
 	public static final int UNKNOWN = 2;
 	
-	private Cell[][]     cells   = null;
-	private Constraint[] rows    = null;
-	private Constraint[] cols    = null;
-	private int          numRows = -1;
-	private int          numCols = -1;
+	private byte[]       states        = null; // cell states, row by row
+	private Constraint[] rows          = null;
+	private Constraint[] cols          = null;
+	private int          numRows       = -1;
+	private int          numCols       = -1;
+	private long[]       fullBits      = null; // packed FULL cells, bit row*numCols+col
+	private long[]       emptyBits     = null; // packed EMPTY cells
+	private long[]       goal          = null; // packed goal, or null if there is none
+	private int          updateDepth   = 0;    // nesting of beginUpdate()
+	private boolean[]    dirtyRow      = null; // is the row in dirtyRows?
+	private boolean[]    dirtyCol      = null; // is the column in dirtyCols?
+	private int[]        dirtyRows     = null; // rows changed since the last notification
+	private int[]        dirtyCols     = null; // columns changed since the last notification
+	private int          numDirtyRows  = 0;
+	private int          numDirtyCols  = 0;
+	private int          numDirtyCells = 0;
+	private LineStatus[] rowStatus     = null; // status of each row when listeners were last notified
+	private LineStatus[] colStatus     = null; // status of each column when listeners were last notified
+	private boolean[]    staleRow      = null; // is the row in staleRows?
+	private boolean[]    staleCol      = null; // is the column in staleCols?
+	private int[]        staleRows     = null; // rows changed since the solved lines were counted
+	private int[]        staleCols     = null; // columns changed since the solved lines were counted
+	private int          numStaleRows  = 0;
+	private int          numStaleCols  = 0;
+	private int          solvedLines   = 0;    // solved lines, not counting the stale ones
+	private int          goalDiffs     = 0;    // cells whose FULL state differs from the goal
+	
+	private final Map<String, String>                    metadata  = new LinkedHashMap<>(); // title, by, ...
+	private final CopyOnWriteArrayList<NonogramListener> listeners = new CopyOnWriteArrayList<>();
+	
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME  = 0x100000001b3L;
+	
+	private static final String[] RESERVED_KEYS = { "width", "height", "rows", "columns", "goal" };
 	
 	private static boolean traceOn = false; // for debugging
 }
@@ -0,0 +1,68 @@
+package nonogram;
+
+import java.util.Arrays;
+
+/**
+ * A change to the cells of a Nonogram puzzle, as passed to its listeners: the rows and columns
+ * that hold changed cells. A single setState() produces a change of one row and one column; a bulk
+ * update (see Nonogram.beginUpdate() and Nonogram.setStates()) produces one change covering all
+ * its cells, so an observer can bring itself up to date in a single pass.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class NonogramChange {
+	/**
+	 * Constructor
+	 *
+	 * @param rows the changed rows (not copied)
+	 * @param cols the changed columns (not copied)
+	 * @param cellCount the number of cell changes
+	 */
+	NonogramChange(int[] rows, int[] cols, int cellCount) {
+		this.rows      = rows;
+		this.cols      = cols;
+		this.cellCount = cellCount;
+	}
+
+	/**
+	 * Retrieve the rows with changed cells, in the order they were first changed
+	 *
+	 * @return the row numbers (a copy)
+	 */
+	public int[] getRows() {
+		return rows.clone();
+	}
+
+	/**
+	 * Retrieve the columns with changed cells, in the order they were first changed
+	 *
+	 * @return the column numbers (a copy)
+	 */
+	public int[] getCols() {
+		return cols.clone();
+	}
+
+	/**
+	 * Retrieve the number of cell changes (a cell set twice counts twice)
+	 *
+	 * @return the number of cell changes
+	 */
+	public int getCellCount() {
+		return cellCount;
+	}
+
+	/**
+	 * String representation of the change (useful for debugging)
+	 *
+	 * @return the string representation
+	 */
+	@Override
+	public String toString() {
+		return "NonogramChange(rows " + Arrays.toString(rows) + ", cols " + Arrays.toString(cols) + ", " + cellCount + " cells)";
+	}
+
+	private final int[] rows;
+	private final int[] cols;
+	private final int   cellCount;
+}
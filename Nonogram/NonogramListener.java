@@ -0,0 +1,35 @@
+package nonogram;
+
+/**
+ * A listener for changes to a Nonogram puzzle (see Nonogram.addListener()).
+ * <p>
+ * After each change (a single setState(), or a bulk update; see Nonogram.beginUpdate()) a
+ * listener is first told which rows and columns hold changed cells, and then of every row or column
+ * whose status changed as a result. Both methods do nothing by default, so a listener need only
+ * implement the one it wants.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public interface NonogramListener {
+	/**
+	 * Called after cells of the puzzle have changed
+	 *
+	 * @param puzzle the puzzle
+	 * @param change the rows and columns with changed cells
+	 */
+	default void cellsChanged(Nonogram puzzle, NonogramChange change) {
+	}
+
+	/**
+	 * Called after the status of a row or column has changed
+	 *
+	 * @param puzzle the puzzle
+	 * @param isRow true for a row, false for a column
+	 * @param index the row or column number
+	 * @param oldStatus the previous status
+	 * @param newStatus the new status
+	 */
+	default void lineStatusChanged(Nonogram puzzle, boolean isRow, int index, LineStatus oldStatus, LineStatus newStatus) {
+	}
+}
@@ -0,0 +1,403 @@
+package nonogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A streaming reader for packs of puzzles in the .non file format, concatenated one after another.
+ * <p>
+ * Puzzles are read one at a time, so a pack of any size is read in constant memory (apart from the
+ * puzzle being built). A puzzle ends once its rows and columns are complete and a line starts a
+ * new puzzle: one beginning with catalogue, title, by, copyright, license, width, height, rows or
+ * columns. Any other keyword lines (such as goal) stay with the current puzzle, and blank lines
+ * are ignored. The goal line, if present, becomes the puzzle's goal, and the other keyword lines
+ * (title, by and so on) its metadata (see Nonogram.getGoal() and Nonogram.getMetadata()).
+ * <p>
+ * Lines are read into a reusable character buffer and tokenized by hand, so reading allocates
+ * nothing per line beyond the clues and metadata themselves. A malformed puzzle causes a NonogramException,
+ * and a read failure an UncheckedIOException.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class NonogramReader implements Iterator<Nonogram>, Closeable {
+	/**
+	 * Constructor
+	 *
+	 * @param in the characters to read
+	 */
+	public NonogramReader(Reader in) {
+		if (in == null)
+			throw new IllegalArgumentException("in cannot be null");
+		this.in = in;
+	}
+
+	/**
+	 * Constructor from a UTF-8 byte stream
+	 *
+	 * @param in the bytes to read
+	 */
+	public NonogramReader(InputStream in) {
+		this(new InputStreamReader(checkStream(in), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Constructor from a UTF-8 file
+	 *
+	 * @param path the file to read
+	 * @throws IOException if the file cannot be opened
+	 */
+	public NonogramReader(Path path) throws IOException {
+		this(Files.newInputStream(path));
+	}
+
+	/**
+	 * A stream of the puzzles in a file, which closes the file when the stream is closed
+	 *
+	 * @param path the file to read
+	 * @return the stream of puzzles
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static Stream<Nonogram> stream(Path path) throws IOException {
+		NonogramReader reader = new NonogramReader(path);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						reader.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	/**
+	 * Is there another puzzle?
+	 *
+	 * @return true if there is another puzzle, otherwise false
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next == null)
+			next = readPuzzle();
+		return next != null;
+	}
+
+	/**
+	 * Read the next puzzle
+	 *
+	 * @return the puzzle
+	 */
+	@Override
+	public Nonogram next() {
+		if (!hasNext())
+			throw new NoSuchElementException("no more puzzles");
+		Nonogram puzzle = next;
+		next = null;
+		count++;
+		return puzzle;
+	}
+
+	/**
+	 * Retrieve the number of puzzles returned so far
+	 *
+	 * @return the number of puzzles
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Retrieve the number of the line last read (from 1), for error reporting
+	 *
+	 * @return the line number
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Close the underlying reader
+	 *
+	 * @throws IOException if the reader cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Read lines until a puzzle is complete
+	 *
+	 * @return the puzzle, or null at the end of the input
+	 */
+	private Nonogram readPuzzle() {
+		int                 width    = -1;
+		int                 height   = -1;
+		int[][]             rowNums  = null;
+		int[][]             colNums  = null;
+		int                 numRows  = 0;
+		int                 numCols  = 0;
+		int                 section  = NONE;
+		boolean             any      = false; // has this puzzle any content yet?
+		long[]              bits     = null;  // goal bits
+		int                 numBits  = 0;
+		Map<String, String> metadata = null;
+		while (pushedBack || readLine()) {
+			pushedBack = false;
+			int pos = skipSpace(0);
+			if (pos == len)
+				continue;
+			char c = line[pos];
+			if (isLetter(c)) {
+				int end = pos;
+				while ((end < len) && (isLetter(line[end]) || (line[end] == '-') || (line[end] == '_')))
+					end++;
+				boolean complete = (rowNums != null) && (colNums != null) && (numRows == height) && (numCols == width);
+				if (complete && startsPuzzle(pos, end)) {
+					pushedBack = true;
+					break;
+				}
+				any = true;
+				if (keyword(pos, end, "width")) {
+					width = parseSize(end, "width");
+					colNums = new int[width][];
+				} else if (keyword(pos, end, "height")) {
+					height = parseSize(end, "height");
+					rowNums = new int[height][];
+				} else if (keyword(pos, end, "rows")) {
+					section = ROWS;
+				} else if (keyword(pos, end, "columns")) {
+					section = COLS;
+				} else if (keyword(pos, end, "goal")) {
+					section = NONE;
+					bits    = new long[1];
+					numBits = 0;
+					for (int i=end; i<len; i++) {
+						char g = line[i];
+						if ((g != '0') && (g != '1'))
+							continue; // quotes and spaces
+						if ((numBits >>> 6) == bits.length)
+							bits = Arrays.copyOf(bits, 2*bits.length);
+						if (g == '1')
+							bits[numBits >>> 6] |= 1L << numBits;
+						numBits++;
+					}
+				} else {
+					section = NONE;
+					if (metadata == null)
+						metadata = new LinkedHashMap<>();
+					metadata.put(new String(line, pos, end - pos), value(end));
+				}
+			} else if (isDigit(c)) {
+				any = true;
+				if ((section == ROWS) && (rowNums != null) && (numRows < height))
+					rowNums[numRows++] = parseNums(pos);
+				else if ((section == COLS) && (colNums != null) && (numCols < width))
+					colNums[numCols++] = parseNums(pos);
+			}
+		}
+		if (!any)
+			return null;
+		if ((width < 0) || (height < 0))
+			throw error("missing width or height");
+		if (numRows != height)
+			throw error("incorrect number of rows (" + numRows + ")");
+		if (numCols != width)
+			throw error("incorrect number of cols (" + numCols + ")");
+		if ((bits != null) && (numBits != width*height))
+			throw error("goal has " + numBits + " cells, expected " + width*height);
+		try {
+			Nonogram puzzle = new Nonogram(rowNums, colNums);
+			if (bits != null)
+				puzzle.setGoal(Arrays.copyOf(bits, (numBits + 63) >>> 6));
+			if (metadata != null)
+				for (Map.Entry<String, String> entry : metadata.entrySet())
+					puzzle.setMetadata(entry.getKey(), entry.getValue());
+			return puzzle;
+		} catch (IllegalArgumentException e) {
+			throw error(e.getMessage());
+		}
+	}
+
+	/**
+	 * Read the next line into the line buffer, without its line terminator
+	 *
+	 * @return false at the end of the input
+	 */
+	private boolean readLine() {
+		len = 0;
+		boolean read = false;
+		while (true) {
+			if (bufPos == bufLen) {
+				try {
+					bufLen = in.read(buf, 0, buf.length);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				bufPos = 0;
+				if (bufLen <= 0) {
+					bufLen = 0;
+					if (read)
+						lineNumber++;
+					return read;
+				}
+			}
+			read = true;
+			char c = buf[bufPos++];
+			if (c == '\n') {
+				lineNumber++;
+				if ((len > 0) && (line[len-1] == '\r'))
+					len--;
+				return true;
+			}
+			if (len == line.length)
+				line = Arrays.copyOf(line, 2*line.length);
+			line[len++] = c;
+		}
+	}
+
+	/**
+	 * Does the keyword in [pos,end) begin a new puzzle?
+	 */
+	private boolean startsPuzzle(int pos, int end) {
+		for (String key : START_KEYS)
+			if (keyword(pos, end, key))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Is the keyword in [pos,end) the given one?
+	 */
+	private boolean keyword(int pos, int end, String key) {
+		if (end - pos != key.length())
+			return false;
+		for (int i=0; i<key.length(); i++)
+			if (line[pos + i] != key.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Parse the size following a width or height keyword
+	 */
+	private int parseSize(int pos, String what) {
+		pos = skipSpace(pos);
+		if ((pos == len) || !isDigit(line[pos]))
+			throw error("non-integer " + what);
+		int size = 0;
+		while ((pos < len) && isDigit(line[pos])) {
+			size = 10*size + (line[pos++] - '0');
+			if (size > MAX_SIZE)
+				throw error(what + " too large");
+		}
+		if (size < Nonogram.MIN_SIZE)
+			throw error(what + " cannot be shorter than " + Nonogram.MIN_SIZE);
+		return size;
+	}
+
+	/**
+	 * Parse a line of comma-separated nums starting at pos
+	 */
+	private int[] parseNums(int pos) {
+		int n = 0;
+		while (true) {
+			pos = skipSpace(pos);
+			if ((pos == len) || !isDigit(line[pos]))
+				throw error("non-integer num");
+			int num = 0;
+			while ((pos < len) && isDigit(line[pos])) {
+				num = 10*num + (line[pos++] - '0');
+				if (num > MAX_SIZE)
+					throw error("num too large");
+			}
+			if (n == nums.length)
+				nums = Arrays.copyOf(nums, 2*nums.length);
+			nums[n++] = num;
+			pos = skipSpace(pos);
+			if (pos == len)
+				break;
+			if (line[pos] != ',')
+				throw error("non-integer num");
+			pos++;
+		}
+		int[] result = Arrays.copyOf(nums, n);
+		if (!NGPattern.checkNums(result))
+			throw error("nums invalid");
+		return result;
+	}
+
+	/**
+	 * The value following a keyword, without surrounding white space or quotes
+	 */
+	private String value(int pos) {
+		pos = skipSpace(pos);
+		int end = len;
+		while ((end > pos) && ((line[end-1] == ' ') || (line[end-1] == '\t')))
+			end--;
+		if ((end - pos >= 2) && (line[pos] == '"') && (line[end-1] == '"')) {
+			pos++;
+			end--;
+		}
+		return new String(line, pos, end - pos);
+	}
+
+	private int skipSpace(int pos) {
+		while ((pos < len) && ((line[pos] == ' ') || (line[pos] == '\t')))
+			pos++;
+		return pos;
+	}
+
+	private static boolean isDigit(char c) {
+		return (c >= '0') && (c <= '9');
+	}
+
+	private static boolean isLetter(char c) {
+		return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'));
+	}
+
+	private NonogramException error(String message) {
+		return new NonogramException("puzzle " + (count + 1) + ", line " + lineNumber + ": " + message);
+	}
+
+	private static InputStream checkStream(InputStream in) {
+		if (in == null)
+			throw new IllegalArgumentException("in cannot be null");
+		return in;
+	}
+
+	private static final int      NONE       = 0;
+	private static final int      ROWS       = 1;
+	private static final int      COLS       = 2;
+	private static final int      MAX_SIZE   = 1 << 20; // guards against overflow on absurd input
+	private static final String[] START_KEYS = { "catalogue", "title", "by", "copyright", "license",
+	                                             "width", "height", "rows", "columns" };
+
+	private final Reader in;
+	private final char[] buf        = new char[8192];
+	private int          bufPos     = 0;
+	private int          bufLen     = 0;
+	private char[]       line       = new char[256];  // the current line
+	private int          len        = 0;              // its length
+	private boolean      pushedBack = false;          // is the current line the first of the next puzzle?
+	private int[]        nums       = new int[16];    // work array for parsing clues
+	private long         lineNumber = 0;
+	private long         count      = 0;
+	private Nonogram     next       = null;           // read ahead by hasNext()
+}
@@ -3,15 +3,16 @@ package nonogram;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Scanner;
-import java.util.Stack;
 import java.util.regex.Pattern;
 
+import nonogram.solver.Hint;
+import nonogram.solver.HintService;
+
 /**
  * A text-based user interface to a Nonogram puzzle.
  *
@@ -28,7 +29,8 @@ public class NonogramUI {
     private static final String NGFILE = "nons/tiny.non";
     private Scanner scnr = null;
     private Nonogram puzzle = null;
-    private Stack<List<Assign>> assignStack = new Stack();
+    private MoveJournal journal = new MoveJournal(MoveJournal.DEFAULT_CAPACITY);
+    private HintService hintService = new HintService();
 
     /**
      * Default constructor
@@ -182,7 +184,53 @@ public class NonogramUI {
      */
     public static void main(String[] args) {
         NonogramUI ui = new NonogramUI();
+        if ((args.length > 0) && args[0].equals("-journal"))
+            ui.startJournal();
         ui.menu();
+        ui.closeJournal();
+    }
+
+    /**
+     * Journal the moves to a file next to the puzzle file, first recovering the game from it if
+     * an earlier session left one (a journal that cannot be recovered is kept, see
+     * JournalFile.moveAside())
+     */
+    public void startJournal() {
+        Path path = Paths.get(NGFILE + JournalFile.EXTENSION);
+        try {
+            if (Files.exists(path)) {
+                int moves = JournalFile.recover(path, puzzle);
+                System.out.println("Recovered the game from " + path + " (" + moves + " moves since the last checkpoint)");
+            }
+        } catch (IOException | NonogramException e) {
+            System.out.println("Unable to recover from " + path + ": " + e.getMessage());
+            try {
+                System.out.println("The journal was kept as " + JournalFile.moveAside(path));
+            } catch (IOException ex) {
+                System.out.println("Unable to keep the journal, so no new one is started: " + ex.getMessage());
+                return;
+            }
+        }
+        try {
+            journal.setFile(new JournalFile(path, puzzle));
+        } catch (IOException e) {
+            System.out.println("Unable to start the journal " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write any moves not yet written to the journal file, and close it
+     */
+    public void closeJournal() {
+        JournalFile file = journal.getFile();
+        if (file == null)
+            return;
+        journal.setFile(null);
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.out.println("Unable to close the journal: " + e.getMessage());
+        }
     }
 
     /**
@@ -323,6 +371,8 @@ public class NonogramUI {
         System.out.println("   Row multi move     [R]");
         System.out.println("   Col multi move     [C]");
         System.out.println("   Undo assignment    [U]");
+        System.out.println("   Redo assignment [Redo]");
+        System.out.println("   Hint            [Hint]");
         System.out.println("   Restart puzzle [Clear]");
         System.out.println("   Save to file    [Save]");
         System.out.println("   Load from file  [Load]");
@@ -347,6 +397,7 @@ public class NonogramUI {
     private void execute(String command) {
         if (command.equalsIgnoreCase("Quit")) {
             System.out.println("Program closing down");
+            closeJournal();
             System.exit(0);
         } else if (command.equalsIgnoreCase("H")) {
             help();
@@ -358,6 +409,10 @@ public class NonogramUI {
             colMultiMove();
         } else if (command.equalsIgnoreCase("U")) {
             undo();
+        } else if (command.equalsIgnoreCase("Redo")) {
+            redo();
+        } else if (command.equalsIgnoreCase("Hint")) {
+            hint();
         } else if (command.equalsIgnoreCase("Clear")) {
             clearGame();
         } else if (command.equalsIgnoreCase("Save")) {
@@ -370,30 +425,29 @@ public class NonogramUI {
     }
 
     /**
-     * load moves from the user provided .non file
+     * load moves from the user provided .mov file (binary, or the older text form)
      */
     private void loadMoves() {
         String filename = getString("Enter filename to load moves: ");
         try {
-            String content = new String(Files.readAllBytes(Paths.get(filename)));
-            // Clear the game before loading the moves
-            clearGame();
-            puzzle.setStatesByString(content);
+            // every cell is set, so the game need not be cleared first
+            MovesFile.read(Paths.get(filename), puzzle);
+            journal.clear();
+            journal.checkpoint();
             System.out.println("Successfully loaded the moves from file.");
-        } catch (IOException ex) {
+        } catch (IOException | NonogramException | IllegalArgumentException ex) {
             System.out.println("Error while loading moves. " + ex.getMessage());
         }
     }
 
     /**
-     * save state of all cells to text file (.non extension)
+     * save state of all cells to a binary .mov file
      * user is prompted to provide a file name (optionally with path)
      */
     private void saveMoves() {
         String filename = getString("Enter filename to store moves: ");
-        String states = getStatesAsString();
         try {
-            Files.write(Paths.get(filename), states.getBytes(StandardCharsets.UTF_8));
+            MovesFile.write(Paths.get(filename), puzzle);
             System.out.println("Successfully wrote moves to the file.");
         } catch (IOException e) {
             System.out.println("An error occurred while writing moves. " + e.getMessage());
@@ -401,40 +455,43 @@ public class NonogramUI {
     }
 
     /**
-     * Gets states as string.
-     *
-     * @return the states as string
+     * undo the previously made move or multi-move
      */
-    private String getStatesAsString() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < puzzle.getNumRows(); i++) {
-            for (int j = 0; j < puzzle.getNumCols(); j++) {
-                sb.append(puzzle.getState(i, j));
-            }
-        }
-        return sb.toString();
+    private void undo() {
+        if (journal.undo(puzzle) == 0)
+            System.out.println("No moves left to undo");
     }
 
     /**
-     * undo the previously made move or multi-move
+     * redo the move or multi-move last undone
      */
-    private void undo() {
-        List<Assign> assignList = popFromStack();
-        if (assignList == null) {
-            System.out.println("No moves left to undo");
+    private void redo() {
+        if (journal.redo(puzzle) == 0)
+            System.out.println("No moves left to redo");
+    }
+
+    /**
+     * show the next logical move and make it (it can be undone like a multi-move)
+     */
+    private void hint() {
+        Hint hint = hintService.hint(puzzle);
+        if (hint == null) {
+            System.out.println("No hint available");
             return;
         }
-        for (Assign assign : assignList) {
-            puzzle.setState(assign.reverse());
-        }
+        System.out.println(hint.getDescription());
+        if (hint.getAssigns().isEmpty())
+            return;
+        journal.apply(puzzle, hint.getAssigns());
     }
 
     /**
      * clear the game
      */
     private void clearGame() {
-        assignStack.clear();
+        journal.clear();
         puzzle.clear();
+        journal.checkpoint();
     }
 
     /**
@@ -459,8 +516,7 @@ public class NonogramUI {
             System.out.println("invalid user move");
             return;
         }
-        pushToStack(userMove);
-        puzzle.setState(userMove);
+        journal.apply(puzzle, userMove);
     }
 
     /**
@@ -491,9 +547,7 @@ public class NonogramUI {
             System.out.println("invalid user move list");
             return;
         }
-        pushToStack(list);
-        for (Assign a : list)
-            puzzle.setState(a);
+        journal.apply(puzzle, list);
     }
 
     /**
@@ -532,9 +586,7 @@ public class NonogramUI {
             System.out.println("invalid user move list");
             return;
         }
-        pushToStack(list);
-        for (Assign a : list)
-            puzzle.setState(a);
+        journal.apply(puzzle, list);
     }
 
     /**
@@ -621,35 +673,4 @@ public class NonogramUI {
         scnr.nextLine(); // clear the line
         return s;
     }
-
-    /**
-     * place the assign into stack
-     */
-    public void pushToStack(Assign assign) {
-        List<Assign> assignList = new ArrayList<>();
-        assignList.add(assign);
-        pushToStack(assignList);
-    }
-
-    /**
-     * place items from assignList onto stack
-     */
-    public void pushToStack(List<Assign> assignList) {
-
-        for (Assign assign : assignList) {
-            int currState = puzzle.getState(assign.getRow(), assign.getCol());
-            assign.setPreviousState(currState);
-        }
-        assignStack.push(assignList);
-    }
-
-    /**
-     * return the top most assignList
-     * returns null if stack is empty
-     *
-     * @return stack top element if not empty else null
-     */
-    public List<Assign> popFromStack() {
-        return assignStack.isEmpty() ? null : assignStack.pop();
-    }
 }
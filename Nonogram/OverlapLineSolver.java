@@ -0,0 +1,163 @@
+package nonogram;
+
+/**
+ * A line solver restricted to the simple rules a person applies first: the leftmost and rightmost
+ * placements of the blocks are found, a cell covered by the same block in both is FULL, and a cell
+ * that no block can reach between its leftmost and rightmost positions is EMPTY.
+ * <p>
+ * The rules are sound but, unlike LineSolver, not complete: a line may have cells that are the same
+ * in every placement but that these rules do not fix. Which of the two a puzzle needs is a measure
+ * of its difficulty (see nonogram.solver.DifficultyRater).
+ * <p>
+ * The work arrays are reused between calls, so an OverlapLineSolver is not thread-safe; use one per
+ * thread.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class OverlapLineSolver {
+	/**
+	 * Solve a line against a pattern with the overlap rules.
+	 * The line is only modified if it is consistent with the pattern.
+	 *
+	 * @param nums the pattern of contiguous full cells (an empty array means an all-empty line)
+	 * @param line the cell states of the line (EMPTY, FULL or UNKNOWN), updated in place
+	 * @return the number of cells changed from UNKNOWN, or LineSolver.CONTRADICTION if no placement exists
+	 */
+	public int solve(int[] nums, byte[] line) {
+		if (nums == null)
+			throw new IllegalArgumentException("nums cannot be null");
+		if (line == null)
+			throw new IllegalArgumentException("line cannot be null");
+		int n = line.length;
+		int k = nums.length;
+		ensureCapacity(n, k);
+
+		// leftmost placement, then the rightmost as the leftmost of the reversed line
+		if (!leftmost(nums, line, false, left))
+			return LineSolver.CONTRADICTION;
+		for (int i=0; i<n; i++)
+			reversed[i] = line[n-1 - i];
+		for (int j=0; j<k; j++)
+			revNums[j] = nums[k-1 - j];
+		leftmost(revNums, reversed, true, right);
+		for (int j=0; j<k; j++)
+			start[j] = n - right[k-1 - j] - nums[j]; // mirror the reversed start back
+
+		// block j lies in [left[j], start[j]+nums[j]) in every placement, and covers [start[j], left[j]+nums[j])
+		for (int i=0; i<=n; i++)
+			reach[i] = 0;
+		for (int j=0; j<k; j++) {
+			reach[left[j]]++;
+			reach[start[j] + nums[j]]--;
+		}
+		int changed = 0;
+		int reached = 0;
+		for (int i=0; i<n; i++) {
+			reached += reach[i];
+			if ((reached == 0) && (line[i] == Nonogram.UNKNOWN)) {
+				line[i] = Nonogram.EMPTY;
+				changed++;
+			}
+		}
+		for (int j=0; j<k; j++) {
+			for (int i=start[j]; i<left[j]+nums[j]; i++) {
+				if (line[i] == Nonogram.UNKNOWN) {
+					line[i] = Nonogram.FULL;
+					changed++;
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Find the leftmost placement of the blocks, placing each as early as the blocks after it allow
+	 *
+	 * @param nums the pattern
+	 * @param line the cell states
+	 * @param known true if a placement is already known to exist
+	 * @param starts filled with the start of each block
+	 * @return false if there is no placement
+	 */
+	private boolean leftmost(int[] nums, byte[] line, boolean known, int[] starts) {
+		int n = line.length;
+		int k = nums.length;
+		int w = n + 1;
+		emptyBefore[0] = 0;
+		for (int i=0; i<n; i++)
+			emptyBefore[i+1] = emptyBefore[i] + ((line[i] == Nonogram.EMPTY) ? 1 : 0);
+
+		// bw[j][i]: cells [i,n) can hold exactly the blocks j..k-1
+		bw[k*w + n] = true;
+		for (int i=n-1; i>=0; i--)
+			bw[k*w + i] = bw[k*w + i+1] && (line[i] != Nonogram.FULL);
+		for (int j=k-1; j>=0; j--) {
+			int c   = nums[j];
+			int row = j*w;
+			bw[row+n] = false;
+			for (int i=n-1; i>=0; i--) {
+				boolean ok = bw[row+i+1] && (line[i] != Nonogram.FULL);
+				int e = i + c;
+				if (!ok && (e <= n) && (emptyBefore[e] == emptyBefore[i]))
+					ok = rightOK(nums, line, j, e, w);
+				bw[row+i] = ok;
+			}
+		}
+		if (!known && !bw[0])
+			return false;
+
+		int pos = 0;
+		for (int j=0; j<k; j++) {
+			int c = nums[j];
+			int s = pos;
+			while (!((emptyBefore[s+c] == emptyBefore[s]) && rightOK(nums, line, j, s+c, w)))
+				s++; // cannot pass a FULL cell, since bw[j][pos] holds
+			starts[j] = s;
+			pos = s + c + 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Can the blocks after block j fit in [e,n), given block j ends just before e?
+	 */
+	private boolean rightOK(int[] nums, byte[] line, int j, int e, int w) {
+		int n = line.length;
+		int k = nums.length;
+		if (j == k-1)
+			return bw[k*w + e];
+		return (e < n) && (line[e] != Nonogram.FULL) && bw[(j+1)*w + e+1];
+	}
+
+	/**
+	 * Grow the work arrays to suit a line of n cells and k blocks
+	 */
+	private void ensureCapacity(int n, int k) {
+		int size = (k+1)*(n+1);
+		if (bw.length < size)
+			bw = new boolean[size];
+		if (reach.length < n+1) {
+			reach       = new int[n+1];
+			emptyBefore = new int[n+1];
+		}
+		if (reversed.length != n)
+			reversed = new byte[n];
+		if (left.length < k) {
+			left  = new int[k];
+			right = new int[k];
+			start = new int[k];
+		}
+		if (revNums.length != k)
+			revNums = new int[k];
+	}
+
+	private boolean[] bw          = new boolean[0]; // suffix reachability, (k+1) x (n+1)
+	private int[]     emptyBefore = new int[0];     // emptyBefore[i] is the number of EMPTY cells in [0,i)
+	private int[]     reach       = new int[0];     // difference array of the cells blocks can reach
+	private byte[]    reversed    = new byte[0];    // the line, reversed
+	private int[]     revNums     = new int[0];     // the pattern, reversed
+	private int[]     left        = new int[0];     // leftmost start of each block
+	private int[]     right       = new int[0];     // leftmost start of each block of the reversed line
+	private int[]     start       = new int[0];     // rightmost start of each block
+}
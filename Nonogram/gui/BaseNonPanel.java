@@ -5,6 +5,7 @@ import nonogram.Nonogram;
 
 import javax.swing.*;
 import java.awt.*;
+import java.nio.file.Path;
 
 /**
  * main board content
@@ -95,12 +96,15 @@ public class BaseNonPanel extends JPanel {
      * call this method when game is loaded
      */
     public void prepareBoard() {
+        gameBoard.prepareBoard();
+        hintColPanel.setCellSize(gameBoard.getCellSize());
+        hintRowPanel.setCellSize(gameBoard.getCellSize());
         hintColPanel.prepareBoard();
         hintRowPanel.prepareBoard();
-        gameBoard.prepareBoard();
 
-        getPuzzle().addObserver(hintColPanel);
-        getPuzzle().addObserver(hintRowPanel);
+        getPuzzle().addListener(hintColPanel);
+        getPuzzle().addListener(hintRowPanel);
+        getPuzzle().addListener(gameBoard);
     }
 
     /**
@@ -112,6 +116,23 @@ public class BaseNonPanel extends JPanel {
         controlPanel.pushToStack(assign);
     }
 
+    /**
+     * Journal the moves to a file, first recovering the game from it if it exists.
+     *
+     * @param path the journal file
+     */
+    public void startJournal(Path path) {
+        controlPanel.startJournal(path);
+    }
+
+    /**
+     * Close the journal file, if there is one.
+     */
+    public void closeJournal() {
+        if (controlPanel != null)
+            controlPanel.closeJournal();
+    }
+
     /**
      * Clear stack.
      */
@@ -1,17 +1,20 @@
 package nonogram.gui;
 
 import nonogram.Assign;
+import nonogram.JournalFile;
+import nonogram.MoveJournal;
+import nonogram.MovesFile;
+import nonogram.NonogramException;
+import nonogram.solver.Hint;
+import nonogram.solver.HintService;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.List;
-import java.util.Stack;
+import java.nio.file.Path;
 
 /**
  * display buttons and perform actions
@@ -40,6 +43,10 @@ public class ControlNonPanel extends BaseNonPanel {
      * The Undo btn.
      */
     private JButton undoBtn;
+    /**
+     * The Redo btn.
+     */
+    private JButton redoBtn;
     /**
      * The Load non btn.
      */
@@ -53,9 +60,17 @@ public class ControlNonPanel extends BaseNonPanel {
      */
     private JButton loadMovesBtn;
     /**
-     * The Assign stack.
+     * The Hint btn.
      */
-    private Stack<Assign> assignStack = new Stack<>();
+    private JButton hintBtn;
+    /**
+     * The journal of moves, for undo and redo.
+     */
+    private MoveJournal journal = new MoveJournal(MoveJournal.DEFAULT_CAPACITY);
+    /**
+     * The Hint service.
+     */
+    private HintService hintService = new HintService();
 
     /**
      * Default constructor
@@ -63,7 +78,7 @@ public class ControlNonPanel extends BaseNonPanel {
     public ControlNonPanel(NonogramGUI driver) {
         super(driver);
 
-        setLayout(new GridLayout(3, 2));
+        setLayout(new GridLayout(4, 2));
 
         helpBtn = new JButton("Help");
         helpBtn.addActionListener(helpHandler());
@@ -95,6 +110,17 @@ public class ControlNonPanel extends BaseNonPanel {
         add(loadMovesBtn);
         setButtonColor(loadMovesBtn);
 
+        hintBtn = new JButton("Hint");
+        hintBtn.addActionListener(hintHandler());
+        add(hintBtn);
+        setButtonColor(hintBtn);
+
+        redoBtn = new JButton("Redo");
+        redoBtn.addActionListener(redoHandler());
+        add(redoBtn);
+        setButtonColor(redoBtn);
+
+        updateUndoButtons();
     }
 
     /**
@@ -169,7 +195,9 @@ public class ControlNonPanel extends BaseNonPanel {
                 help += "left or right click on filled or empty cell turns into unknown cell<br><br>";
                 help += "Load non file - load a new game<br>";
                 help += "Save mov file - saves moves made into a .mov file<br>";
-                help += "Load mov file - loads .mov file";
+                help += "Load mov file - loads .mov file<br>";
+                help += "Hint - fills in the next cells that can be worked out<br>";
+                help += "Undo / Redo - takes back or makes again the last move (a hint is one move)";
                 pop("Help", help);
 
             }
@@ -198,18 +226,34 @@ public class ControlNonPanel extends BaseNonPanel {
     public ActionListener undoHandler() {
         return new ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
-                Assign assignFromStack = popFromStack();
-
-                if (assignFromStack == null) {
+                if (journal.undo(getPuzzle()) == 0) {
                     error("No more moves to undo");
                     return;
                 }
 
-                Assign reverseAssign = assignFromStack.reverse();
-                getPuzzle().setState(reverseAssign);
-                driver.displayCell(reverseAssign);
-                driver.revalidateBoard();
+                updateUndoButtons();
+            }
+        };
+    }
+
+    /**
+     * Redo handler action listener.
+     *
+     * @return the action listener
+     */
+    public ActionListener redoHandler() {
+        return new ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                if (journal.redo(getPuzzle()) == 0) {
+                    error("No more moves to redo");
+                    return;
+                }
+
+                updateUndoButtons();
 
+                if (getPuzzle().isSolved()) {
+                    pop("Info", "Puzzle solved!");
+                }
             }
         };
     }
@@ -256,13 +300,27 @@ public class ControlNonPanel extends BaseNonPanel {
         };
     }
 
+    /**
+     * Hint handler action listener.
+     *
+     * @return the action listener
+     */
+    public ActionListener hintHandler() {
+        return new ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+
+                hint();
+            }
+        };
+    }
+
     /**
      * Clear game.
      */
     public void clearGame() {
         clearStack();
         getPuzzle().clear();
-        driver.refreshBoard();
+        journal.checkpoint();
     }
 
     /**
@@ -285,7 +343,7 @@ public class ControlNonPanel extends BaseNonPanel {
     }
 
     /**
-     * load the moves from the user provided file
+     * load the moves from the user provided .mov file (binary, or the older text form)
      */
     private void loadMoves() {
         try {
@@ -295,26 +353,22 @@ public class ControlNonPanel extends BaseNonPanel {
                 return;
             }
 
-            List<String> lines = Files.readAllLines(myFile.toPath());
-            String states = String.join("", lines);
-
-            clearGame();
-            getPuzzle().setStatesByString(states);
-            driver.refreshBoard();
+            // every cell is set, so the game need not be cleared first
+            MovesFile.read(myFile.toPath(), getPuzzle());
+            clearStack();
+            journal.checkpoint();
 
             log("Successfully loaded moves from file.");
-        } catch (IOException e) {
+        } catch (IOException | NonogramException | IllegalArgumentException e) {
             error("Error while loading moves: " + e.getMessage());
         }
     }
 
     /**
-     * save state of all cells to text file
+     * save state of all cells to a binary .mov file
      * user is prompted to provide a file name (optionally with path)
      */
     private void saveMoves() {
-        String states = getStatesAsString();
-
         try {
             File myFile = acceptFileName("Save .mov file", "Enter a name for the .mov file to save", ".mov");
 
@@ -322,9 +376,7 @@ public class ControlNonPanel extends BaseNonPanel {
                 return;
             }
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(myFile))) {
-                writer.write(states);
-            }
+            MovesFile.write(myFile.toPath(), getPuzzle());
 
             log("Moves successfully saved to file.");
         } catch (IOException e) {
@@ -333,54 +385,100 @@ public class ControlNonPanel extends BaseNonPanel {
     }
 
     /**
-     * Gets states as string.
-     *
-     * @return the states as string
+     * show the next logical move and make it
      */
-    private String getStatesAsString() {
-        StringBuilder sb = new StringBuilder();
+    private void hint() {
+        Hint hint = hintService.hint(getPuzzle());
 
-        for (int i = 0; i < getPuzzle().getNumRows(); i++) {
-            for (int j = 0; j < getPuzzle().getNumCols(); j++) {
-                sb.append(getPuzzle().getState(i, j));
-            }
+        if (hint == null) {
+            log("No hint available.");
+            return;
+        }
+
+        if (!hint.getAssigns().isEmpty()) { // a mistake has no move to make
+            journal.apply(getPuzzle(), hint.getAssigns()); // one change event, and one undo, for the whole hint
+            updateUndoButtons();
         }
 
-        return sb.toString();
+        if (hint.getKind() == Hint.Kind.MISTAKE)
+            error(hint.getDescription());
+        else
+            log("Hint: " + hint.getDescription());
+
+        if (getPuzzle().isSolved()) {
+            pop("Info", "Puzzle solved!");
+        }
     }
 
     /**
-     * place the assign into stack
+     * Record a move made on the board, so that it can be undone.
+     *
+     * @param assign the move, with its previous state
      */
     public void pushToStack(Assign assign) {
+        journal.record(assign);
+        updateUndoButtons();
+    }
 
-        Assign copy = assign.copy();
-        assignStack.push(copy);
-        undoBtn.setEnabled(true);
+    /**
+     * Clear stack.
+     */
+    public void clearStack() {
+        journal.clear();
+        updateUndoButtons();
     }
 
     /**
-     * return the top most assign
-     * returns null if stack is empty
+     * Journal the moves to a file, first recovering the game from it if an earlier session left one
+     * (a journal that cannot be recovered is kept, see JournalFile.moveAside()).
      *
-     * @return assign
+     * @param path the journal file
      */
-    public Assign popFromStack() {
-        Assign assign = assignStack.isEmpty() ? null : assignStack.pop();
-
-        if (assignStack.isEmpty()) {
-            undoBtn.setEnabled(false);
+    public void startJournal(Path path) {
+        closeJournal();
+        try {
+            if (Files.exists(path)) {
+                int moves = JournalFile.recover(path, getPuzzle());
+                log("Recovered the game from " + path + " (" + moves + " moves since the last checkpoint)");
+            }
+        } catch (IOException | NonogramException e) {
+            error("Unable to recover from " + path + ": " + e.getMessage());
+            try {
+                log("The journal was kept as " + JournalFile.moveAside(path));
+            } catch (IOException ex) {
+                error("Unable to keep the journal, so no new one is started: " + ex.getMessage());
+                return;
+            }
         }
+        try {
+            journal.setFile(new JournalFile(path, getPuzzle()));
+        } catch (IOException e) {
+            error("Unable to start the journal " + path + ": " + e.getMessage());
+        }
+    }
 
-        return assign;
+    /**
+     * Write any moves not yet written to the journal file, and close it.
+     */
+    public void closeJournal() {
+        JournalFile file = journal.getFile();
+        if (file == null) {
+            return;
+        }
+        journal.setFile(null);
+        try {
+            file.close();
+        } catch (IOException e) {
+            error("Unable to close the journal: " + e.getMessage());
+        }
     }
 
     /**
-     * Clear stack.
+     * Enable the undo and redo buttons when there is something to undo or redo.
      */
-    public void clearStack() {
-        assignStack.clear();
-        undoBtn.setEnabled(false);
+    private void updateUndoButtons() {
+        undoBtn.setEnabled(journal.canUndo());
+        redoBtn.setEnabled(journal.canRedo());
     }
 
 }
@@ -2,19 +2,26 @@ package nonogram.gui;
 
 import nonogram.Assign;
 import nonogram.Nonogram;
+import nonogram.NonogramChange;
+import nonogram.NonogramListener;
 
-import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 
 /**
  * code to draw the game board
+ * <p>
+ * The board is a single component that paints the cells straight from the puzzle: only the
+ * cells inside the clip region are painted, a change to the puzzle (a click, an undo, a hint or a
+ * load alike) repaints just the cells it touched, and a mouse position is mapped to a cell by
+ * arithmetic. The cell size shrinks for large puzzles so
+ * that grids of several hundred cells a side stay usable in the scroll pane.
  *
  * @author Niteesh
- * @version March 2023
+ * @version October 2026
  */
-public class GameBoardNon extends BaseNonPanel {
+public class GameBoardNon extends BaseNonPanel implements NonogramListener {
     /**
      * The constant FULL_COLOR.
      */
@@ -27,12 +34,44 @@ public class GameBoardNon extends BaseNonPanel {
      * The constant UNKNOWN_COLOR.
      */
     public static Color UNKNOWN_COLOR = Color.WHITE;
+    /**
+     * The constant GRID_COLOR.
+     */
+    public static Color GRID_COLOR = Color.BLACK;
+
+    /**
+     * The smallest cell size, in pixels, used for large puzzles.
+     */
+    public static final int MIN_CELL_SIZE = 6;
+    /**
+     * The board size, in pixels, above which cells are made smaller than NonogramGUI.CELL_SIZE.
+     */
+    public static final int MAX_BOARD_SIZE = 900;
+
+    /**
+     * The margin around the grid.
+     */
+    private static final int INSET = 2;
+
+    /**
+     * The size of a cell including its top and left grid line.
+     */
+    private int cellSize = NonogramGUI.CELL_SIZE;
+    /**
+     * The number of rows of the prepared board.
+     */
+    private int numRows = 0;
+    /**
+     * The number of columns of the prepared board.
+     */
+    private int numCols = 0;
 
     /**
      * Default constructor
      */
     public GameBoardNon(NonogramGUI driver) {
         super(driver);
+        setOpaque(true);
         setListener();
     }
 
@@ -43,23 +82,14 @@ public class GameBoardNon extends BaseNonPanel {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                Component panel = getCompAt(GameBoardNon.this, e.getPoint());
-                if (panel == null || panel == GameBoardNon.this) {
+                int idx = getCellIndexAt(e.getX(), e.getY());
+                if (idx < 0) {
                     return;
                 }
 
-                if (!(panel instanceof JLabel))
-                    return;
-
-                JLabel label = (JLabel) panel;
-                changeState(e.getButton() == MouseEvent.BUTTON1, label);
-
-                Assign assign = (Assign) label.getClientProperty("assign");
+                Assign assign = changeState(e.getButton() == MouseEvent.BUTTON1, idx / numCols, idx % numCols);
                 driver.pushToStack(assign);
 
-                label.revalidate();
-                label.repaint();
-
                 if (getPuzzle().isSolved()) {
                     pop("Info", "Puzzle solved!");
                 }
@@ -68,149 +98,133 @@ public class GameBoardNon extends BaseNonPanel {
     }
 
     /**
-     * Gets comp at.
+     * Find the cell under a point of the board.
      *
-     * @param parent the parent
-     * @param p      the p
-     * @return the comp at
-     */
-    public Component getCompAt(Container parent, Point p) {
-        for (Component child : parent.getComponents()) {
-            if (child.getBounds().contains(p)) {
-                return child;
-            }
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the cell index (row * numCols + col), or -1 if the point is not over a cell
+     */
+    public int getCellIndexAt(int x, int y) {
+        if ((x < INSET) || (y < INSET)) {
+            return -1;
+        }
+        int col = (x - INSET) / cellSize;
+        int row = (y - INSET) / cellSize;
+        if ((row >= numRows) || (col >= numCols)) {
+            return -1;
         }
-        return null;
+        return row * numCols + col;
     }
 
     /**
-     * Change state.
+     * Change state: an UNKNOWN cell becomes FULL on a left click or EMPTY otherwise, and a known
+     * cell becomes UNKNOWN.
      *
      * @param isLeftClick the is left click
-     * @param label       the label
+     * @param row         the cell row
+     * @param col         the cell column
+     * @return the move made
      */
-    public void changeState(boolean isLeftClick, JLabel label) {
-
-        Assign assign = (Assign) label.getClientProperty("assign");
-
-        int currState = assign.getState();
-
-        if (assign.getState() != Nonogram.UNKNOWN) {
-            assign.setState(Nonogram.UNKNOWN);
+    public Assign changeState(boolean isLeftClick, int row, int col) {
+        int currState = getPuzzle().getState(row, col);
+        int newState;
+        if (currState != Nonogram.UNKNOWN) {
+            newState = Nonogram.UNKNOWN;
         } else {
-            assign.setState(isLeftClick ? Nonogram.FULL : Nonogram.EMPTY);
+            newState = isLeftClick ? Nonogram.FULL : Nonogram.EMPTY;
         }
 
+        Assign assign = new Assign(row, col, newState);
         assign.setPreviousState(currState);
 
-        displayCell(label);
+        displayCell(assign);
+        return assign;
     }
 
     /**
      * sync up board with the puzzle matrix
      */
     public void refreshBoard() {
-        for (Component c : getComponents()) {
-            if (!(c instanceof JLabel))
-                continue;
-
-            JLabel label = (JLabel) c;
-            Assign assign = (Assign) label.getClientProperty("assign");
-
-            int newState = getPuzzle().getState(assign.getRow(), assign.getCol());
-            assign.setPreviousState(Nonogram.UNKNOWN);
-            assign.setState(newState);
-
-            displayCell(label);
-        }
+        repaint();
     }
 
     /**
-     * draw the initial board filled with unknown char
+     * size the board for the puzzle; the cells are painted from the puzzle itself
      */
     public void prepareBoard() {
         removeAll();
+        setLayout(null);
+        setBorder(null);
 
-        int numRows = getPuzzle().getNumRows();
-        int numCols = getPuzzle().getNumCols();
-
-        setLayout(new GridLayout(0, numCols, -1, -1));
-        setBorder(BorderFactory.createEmptyBorder(2, 2, 2, 2));
-
-        for (int row = 0; row < numRows; row++) {
-            for (int col = 0; col < numCols; col++) {
-                JLabel label = new JLabel();
-                label.setPreferredSize(new Dimension(NonogramGUI.CELL_SIZE, NonogramGUI.CELL_SIZE));
-                label.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                label.setOpaque(true);
-                Assign assign = new Assign(row, col, Nonogram.UNKNOWN);
-                label.putClientProperty("assign", assign);
+        numRows = getPuzzle().getNumRows();
+        numCols = getPuzzle().getNumCols();
+        int fit = MAX_BOARD_SIZE / Math.max(numRows, numCols);
+        cellSize = Math.max(MIN_CELL_SIZE, Math.min(NonogramGUI.CELL_SIZE, fit));
 
-                add(label);
-                displayCell(label);
-            }
-        }
+        Dimension size = new Dimension(2 * INSET + numCols * cellSize + 1, 2 * INSET + numRows * cellSize + 1);
+        setPreferredSize(size);
+        setMinimumSize(size);
+        revalidate();
+        repaint();
     }
 
     /**
-     * Display cell.
+     * Display cell: set the move in the puzzle, which repaints the cell (see cellsChanged()).
      *
-     * @param label the label
+     * @param assign the assign
      */
-    public void displayCell(JLabel label) {
-        Assign assign = (Assign) label.getClientProperty("assign");
+    public void displayCell(Assign assign) {
         getPuzzle().setState(assign);
-
-        char ch = NonogramGUI.stateAsChar(assign.getState());
-        Color bgcolor = UNKNOWN_COLOR;
-
-        switch (assign.getState()) {
-            case Nonogram.FULL:
-                bgcolor = FULL_COLOR;
-                break;
-            case Nonogram.EMPTY:
-                bgcolor = EMPTY_COLOR;
-                break;
-        }
-        label.setBackground(bgcolor);
-        revalidate();
     }
 
     /**
-     * Display cell.
+     * Repaint the cells of a change. They lie where a changed row crosses a changed column, so
+     * the box around those crossings is repainted (Swing would merge separate rectangles into
+     * their union anyway): one cell for a click, one line's run for most hints.
      *
-     * @param assign the assign
+     * @param puzzle the puzzle
+     * @param change the rows and columns with changed cells
      */
-    public void displayCell(Assign assign) {
-        JLabel label = findLabel(assign);
-        if (label == null) {
-            error("Unable to find the cell");
+    @Override
+    public void cellsChanged(Nonogram puzzle, NonogramChange change) {
+        int[] rows = change.getRows();
+        int[] cols = change.getCols();
+        if ((rows.length == 0) || (cols.length == 0)) {
             return;
         }
-
-        label.putClientProperty("assign", assign);
-        displayCell(label);
+        int firstRow = rows[0];
+        int lastRow = rows[0];
+        for (int row : rows) {
+            firstRow = Math.min(firstRow, row);
+            lastRow = Math.max(lastRow, row);
+        }
+        int firstCol = cols[0];
+        int lastCol = cols[0];
+        for (int col : cols) {
+            firstCol = Math.min(firstCol, col);
+            lastCol = Math.max(lastCol, col);
+        }
+        repaint(INSET + firstCol * cellSize, INSET + firstRow * cellSize,
+                (lastCol - firstCol + 1) * cellSize + 1, (lastRow - firstRow + 1) * cellSize + 1);
     }
 
     /**
-     * Find label j label.
+     * Repaint just one cell (with its grid lines).
      *
-     * @param assign the assign
-     * @return the j label
+     * @param row the cell row
+     * @param col the cell column
      */
-    public JLabel findLabel(Assign assign) {
-        JLabel label = null;
-
-        int index = assign.getRow() * getPuzzle().getNumCols()
-                + assign.getCol();
-
-        Component c = getComponent(index);
-
-        if (c instanceof JLabel) {
-            label = (JLabel) c;
-        }
+    public void repaintCell(int row, int col) {
+        repaint(INSET + col * cellSize, INSET + row * cellSize, cellSize + 1, cellSize + 1);
+    }
 
-        return label;
+    /**
+     * Gets cell size.
+     *
+     * @return the cell size in pixels
+     */
+    public int getCellSize() {
+        return cellSize;
     }
 
     /**
@@ -219,4 +233,60 @@ public class GameBoardNon extends BaseNonPanel {
     public void revalidateBoard() {
         revalidate();
     }
+
+    /**
+     * Paint the cells inside the clip region, and their grid lines.
+     *
+     * @param g the graphics context
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if ((numRows == 0) || (getPuzzle() == null)) {
+            return;
+        }
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int firstRow = Math.max(0, (clip.y - INSET) / cellSize);
+        int lastRow = Math.min(numRows - 1, (clip.y + clip.height - INSET) / cellSize);
+        int firstCol = Math.max(0, (clip.x - INSET) / cellSize);
+        int lastCol = Math.min(numCols - 1, (clip.x + clip.width - INSET) / cellSize);
+        if ((firstRow > lastRow) || (firstCol > lastCol)) {
+            return;
+        }
+
+        Nonogram puzzle = getPuzzle();
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = INSET + row * cellSize;
+            for (int col = firstCol; col <= lastCol; col++) {
+                int x = INSET + col * cellSize;
+                switch (puzzle.getState(row, col)) {
+                    case Nonogram.FULL:
+                        g.setColor(FULL_COLOR);
+                        break;
+                    case Nonogram.EMPTY:
+                        g.setColor(EMPTY_COLOR);
+                        break;
+                    default:
+                        g.setColor(UNKNOWN_COLOR);
+                }
+                g.fillRect(x, y, cellSize, cellSize);
+            }
+        }
+
+        g.setColor(GRID_COLOR);
+        int left = INSET + firstCol * cellSize;
+        int right = INSET + (lastCol + 1) * cellSize;
+        int top = INSET + firstRow * cellSize;
+        int bottom = INSET + (lastRow + 1) * cellSize;
+        for (int row = firstRow; row <= lastRow + 1; row++) {
+            g.drawLine(left, INSET + row * cellSize, right, INSET + row * cellSize);
+        }
+        for (int col = firstCol; col <= lastCol + 1; col++) {
+            g.drawLine(INSET + col * cellSize, top, INSET + col * cellSize, bottom);
+        }
+    }
 }
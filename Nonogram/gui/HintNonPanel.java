@@ -1,11 +1,11 @@
 package nonogram.gui;
 
-import nonogram.Cell;
+import nonogram.LineStatus;
+import nonogram.Nonogram;
+import nonogram.NonogramListener;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.Observable;
-import java.util.Observer;
 
 /**
  * display the hints of rows and columns
@@ -13,7 +13,7 @@ import java.util.Observer;
  * @author Niteesh
  * @version March 2023
  */
-public class HintNonPanel extends BaseNonPanel implements Observer {
+public class HintNonPanel extends BaseNonPanel implements NonogramListener {
     /**
      * The constant NORMAL_COLOR.
      */
@@ -36,6 +36,11 @@ public class HintNonPanel extends BaseNonPanel implements Observer {
      */
     private int[][] packs;
 
+    /**
+     * The cell size of the game board, which the clues line up with.
+     */
+    private int cellSize = NonogramGUI.CELL_SIZE;
+
     /**
      * Default constructor
      */
@@ -45,12 +50,26 @@ public class HintNonPanel extends BaseNonPanel implements Observer {
     }
 
     /**
-     * Prepare board.
+     * Sets the cell size of the game board; call before prepareBoard().
+     *
+     * @param cellSize the cell size in pixels, including one grid line
+     */
+    public void setCellSize(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Prepare board: each row clue is one cell high and each column clue one cell wide, so that
+     * the clues line up with the board however small its cells are.
      */
     public void prepareBoard() {
 
         removeAll();
 
+        // shrink the clue font along with the cells
+        Font font = UIManager.getFont("Label.font");
+        font = font.deriveFont(Math.min(font.getSize2D(), cellSize * 0.7f));
+
         if (isRowHint) {
             int numRows = getPuzzle().getNumRows();
             packs = new int[numRows][];
@@ -70,62 +89,97 @@ public class HintNonPanel extends BaseNonPanel implements Observer {
 
             if (isRowHint) {
                 packs[i] = getPuzzle().getRowNums(i);
-                packPanel.setLayout(new FlowLayout(FlowLayout.RIGHT));
+                packPanel.setLayout(new FlowLayout(FlowLayout.RIGHT, 4, 0));
             } else {
                 packs[i] = getPuzzle().getColNums(i);
                 packPanel.setLayout(new GridLayout(0, 1));
             }
 
             for (int j = 0; j < packs[i].length; j++) {
-                packPanel.add(new JLabel(packs[i][j] + ""));
+                packPanel.add(clueLabel(packs[i][j] + "", font));
             }
             packPanel.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-            add(packPanel);
+            add(cellSized(packPanel));
 
             if (isRowHint) {
-                JLabel label = new JLabel((i % 10) + "");
+                JLabel label = clueLabel((i % 10) + "", font);
                 label.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                add(label);
+                add(cellSized(label));
             }
         }
 
         if (!isRowHint) {
             for (int j = 0; j < packs.length; j++) {
-                JLabel label = new JLabel((j % 10) + "");
+                JLabel label = clueLabel((j % 10) + "", font);
                 label.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                add(label);
+                add(cellSized(label));
             }
         }
+
+        // lines may already be solved (such as those with no full cells) or invalid
+        for (int i = 0; i < packs.length; i++) {
+            updateHint(i, isRowHint ? getPuzzle().getRowStatus(i) : getPuzzle().getColStatus(i));
+        }
     }
 
     /**
-     * Update.
+     * Make a centred clue label.
      *
-     * @param obj the obj
-     * @param arg the arg
+     * @param text the text
+     * @param font the font, sized for the cells
+     * @return the label
      */
-    public void update(Observable obj, Object arg) {
-        if (!(arg instanceof Cell)) {
-            return;
-        }
-
-        Cell cell = (Cell) arg;
-        // System.out.println("Updating cell(" + cell.getRow() + ", " + cell.getCol() + ")");
-
-        int index = 0;
-        Color textColor = NORMAL_COLOR;
+    private static JLabel clueLabel(String text, Font font) {
+        JLabel label = new JLabel(text, SwingConstants.CENTER);
+        label.setFont(font);
+        return label;
+    }
 
+    /**
+     * Fix the size of a clue component across the lines: one cell plus the grid line it shares
+     * with its neighbour (the grid layout overlaps them by a pixel), so the clues keep the pitch
+     * of the board's cells.
+     *
+     * @param c the clue component
+     * @return the component
+     */
+    private JComponent cellSized(JComponent c) {
+        Dimension size = c.getPreferredSize();
         if (isRowHint) {
-            index = cell.getRow() * 2;  // multiplied by 2 to skip gutter
-            textColor = getPuzzle().isRowValid(cell.getRow()) ?
-                    getPuzzle().isRowSolved(cell.getRow()) ?
-                            SOLVED_COLOR : NORMAL_COLOR : INVALID_COLOR;
+            size.height = cellSize + 1;
         } else {
-            index = cell.getCol();
-            textColor = getPuzzle().isColValid(cell.getCol()) ?
-                    getPuzzle().isColSolved(cell.getCol()) ?
-                            SOLVED_COLOR : NORMAL_COLOR : INVALID_COLOR;
+            size.width = cellSize + 1;
         }
+        c.setPreferredSize(size);
+        return c;
+    }
+
+    /**
+     * Update the hint of a row or column whose status has changed.
+     *
+     * @param puzzle    the puzzle
+     * @param isRow     true for a row, false for a column
+     * @param index     the row or column
+     * @param oldStatus the previous status
+     * @param newStatus the new status
+     */
+    @Override
+    public void lineStatusChanged(Nonogram puzzle, boolean isRow, int index, LineStatus oldStatus, LineStatus newStatus) {
+        if (isRow == isRowHint) {
+            updateHint(index, newStatus);
+        }
+    }
+
+    /**
+     * Update the colours of the hint of one row or column.
+     *
+     * @param line   the row or column
+     * @param status the status of the line
+     */
+    private void updateHint(int line, LineStatus status) {
+        int index = isRowHint ? line * 2 : line;  // multiplied by 2 to skip gutter
+        Color textColor = (status == LineStatus.INVALID) ? INVALID_COLOR :
+                (status == LineStatus.SOLVED) ? SOLVED_COLOR : NORMAL_COLOR;
 
         Component c = getComponent(index);
         if (!(c instanceof JPanel)) {
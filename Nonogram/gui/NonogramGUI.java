@@ -2,13 +2,17 @@ package nonogram.gui;
 
 import nonogram.Assign;
 import nonogram.Cell;
+import nonogram.JournalFile;
 import nonogram.Nonogram;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.Serial;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 /**
@@ -33,6 +37,10 @@ public class NonogramGUI extends JFrame {
     @Serial
     private static final long serialVersionUID = -4089527572300712394L;
     private static final String NGFILE = "nons/tiny.non";
+    /**
+     * Whether the moves are journalled to a file next to the puzzle file (the -journal option).
+     */
+    private static boolean journalling = false;
     private Nonogram puzzle = null;
     private BaseNonPanel basePanel;
 
@@ -54,6 +62,12 @@ public class NonogramGUI extends JFrame {
         setPreferredSize(getSize());
         setVisible(true);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                basePanel.closeJournal();
+            }
+        });
 
         pack();
 
@@ -111,10 +125,11 @@ public class NonogramGUI extends JFrame {
     /**
      * The entry point of application.
      *
-     * @param args the input arguments
+     * @param args the input arguments: -journal to journal the moves, so a crashed game can be recovered
      */
     public static void main(String[] args) {
         // System.out.println("Working Directory = " + System.getProperty("user.dir"));
+        journalling = (args.length > 0) && args[0].equals("-journal");
         new NonogramGUI();
     }
 
@@ -134,6 +149,9 @@ public class NonogramGUI extends JFrame {
         setPuzzle(new Nonogram(fs));
         basePanel.setPanel();
         prepareBoard();
+        if (journalling) {
+            basePanel.startJournal(Paths.get(filename + JournalFile.EXTENSION));
+        }
 
         log("game loaded from " + filename);
     }
@@ -152,6 +170,7 @@ public class NonogramGUI extends JFrame {
      * Clear Board.
      */
     public void clear() {
+        basePanel.closeJournal();
         if (puzzle != null)
             puzzle.clear();
         basePanel.clear();
@@ -0,0 +1,209 @@
+package nonogram.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nonogram.Nonogram;
+
+/**
+ * Depth-first search with propagation, for puzzles that line logic alone cannot finish.
+ * <p>
+ * At each node an UNKNOWN cell is chosen by the BranchHeuristic and set first to FULL, then to
+ * EMPTY. After each guess the Propagator is run from the guessed cell; a contradiction causes
+ * the search to backtrack. The search keeps one grid per depth, reused between siblings, and
+ * uses an explicit stack so deep searches cannot overflow the call stack. searchAll() carries on
+ * past the first solution, up to a cap, for counting solutions.
+ * <p>
+ * A BacktrackingSearch is not thread-safe; use one per thread.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class BacktrackingSearch {
+	/**
+	 * Constructor
+	 *
+	 * @param propagator the propagator to run after each guess
+	 * @param heuristic the heuristic that chooses the cell to branch on
+	 */
+	public BacktrackingSearch(Propagator propagator, BranchHeuristic heuristic) {
+		if (propagator == null)
+			throw new IllegalArgumentException("propagator cannot be null");
+		if (heuristic == null)
+			throw new IllegalArgumentException("heuristic cannot be null");
+		this.propagator = propagator;
+		this.heuristic  = heuristic;
+	}
+
+	/**
+	 * Search for the first solution reachable from a grid. The grid itself is not changed.
+	 *
+	 * @param grid the starting grid
+	 * @return a solved copy of the grid, or null if there is no solution (or the search was cancelled)
+	 */
+	public Grid search(Grid grid) {
+		ArrayList<Grid> found = new ArrayList<>(1);
+		run(grid, 1, found);
+		return found.isEmpty() ? null : found.get(0);
+	}
+
+	/**
+	 * Search for the solutions reachable from a grid, stopping as soon as a cap is reached.
+	 * The grid itself is not changed.
+	 *
+	 * @param grid the starting grid
+	 * @param cap the most solutions to find (at least 1)
+	 * @return solved copies of the grid, in the order found (fewer than cap if the search space was
+	 *         exhausted or the search was cancelled)
+	 */
+	public List<Grid> searchAll(Grid grid, int cap) {
+		if (cap < 1)
+			throw new IllegalArgumentException("cap must be at least 1 (" + cap + ")");
+		ArrayList<Grid> found = new ArrayList<>();
+		run(grid, cap, found);
+		return found;
+	}
+
+	/**
+	 * Depth-first search adding solved copies to a list until it holds cap solutions
+	 */
+	private void run(Grid grid, int cap, List<Grid> found) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid cannot be null");
+		cancelled = false;
+		if (levels.isEmpty() || !levels.get(0).isSamePuzzle(grid))
+			levels.clear();
+		Grid root = level(0, grid);
+		root.copyFrom(grid);
+		if (!propagator.propagate(root))
+			return;
+		if (root.isComplete()) {
+			found.add(root.copy());
+			return;
+		}
+
+		int numCols = grid.getNumCols();
+		int depth   = 0;
+		push(0, heuristic.selectCell(root));
+		while (depth >= 0) {
+			if (((cancel != null) && cancel.get()) || ((stop != null) && stop.get())) {
+				cancelled = true;
+				return;
+			}
+			int stage = stages[depth];
+			if (stage == 2) { // both values tried
+				depth--;
+				continue;
+			}
+			stages[depth] = stage + 1;
+			int idx   = cells[depth];
+			int value = (stage == 0) ? Nonogram.FULL : Nonogram.EMPTY;
+
+			Grid child = level(depth + 1, grid);
+			child.copyFrom(levels.get(depth));
+			child.setState(idx, value);
+			nodes++;
+			if (!propagator.propagate(child, idx / numCols, idx % numCols))
+				continue;
+			if (child.isComplete()) {
+				found.add(child.copy());
+				if (found.size() >= cap)
+					return;
+				continue; // try the sibling value
+			}
+			depth++;
+			if (depth > maxDepth)
+				maxDepth = depth;
+			push(depth, heuristic.selectCell(child));
+		}
+	}
+
+	/**
+	 * Set a flag that, once raised by another thread, makes the search give up
+	 *
+	 * @param cancel the cancel flag (or null for none)
+	 */
+	public void setCancelFlag(AtomicBoolean cancel) {
+		this.cancel = cancel;
+	}
+
+	/**
+	 * Set a second flag that makes the search give up, as the cancel flag does (used by
+	 * ParallelSearch to stop its subtree searches once another has found a solution)
+	 *
+	 * @param stop the stop flag (or null for none)
+	 */
+	void setStopFlag(AtomicBoolean stop) {
+		this.stop = stop;
+	}
+
+	/**
+	 * Was the last search given up because the cancel (or stop) flag was raised?
+	 *
+	 * @return true if the last search was cancelled, otherwise false
+	 */
+	public boolean wasCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Retrieve the number of search nodes (guesses) made
+	 *
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Retrieve the deepest level of guesses reached
+	 *
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Retrieve the heuristic used to choose branching cells
+	 *
+	 * @return the heuristic
+	 */
+	public BranchHeuristic getHeuristic() {
+		return heuristic;
+	}
+
+	/**
+	 * Record the branching cell for a depth, trying FULL first
+	 */
+	private void push(int depth, int idx) {
+		if (depth >= cells.length) {
+			cells  = Arrays.copyOf(cells, 2*cells.length);
+			stages = Arrays.copyOf(stages, 2*stages.length);
+		}
+		cells[depth]  = idx;
+		stages[depth] = 0;
+	}
+
+	/**
+	 * Retrieve the grid for a depth, creating it (as a copy of a template) on first use
+	 */
+	private Grid level(int depth, Grid template) {
+		while (levels.size() <= depth)
+			levels.add(template.copy());
+		return levels.get(depth);
+	}
+
+	private final Propagator      propagator;
+	private final BranchHeuristic heuristic;
+	private final ArrayList<Grid> levels = new ArrayList<>(); // the grid at each depth
+	private int[] cells    = new int[64]; // the branching cell at each depth
+	private int[] stages   = new int[64]; // 0: try FULL next, 1: try EMPTY next, 2: done
+	private long  nodes    = 0;
+	private int   maxDepth = 0;
+	private AtomicBoolean cancel    = null;
+	private AtomicBoolean stop      = null;
+	private boolean       cancelled = false;
+}
@@ -0,0 +1,277 @@
+package nonogram.solver;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import nonogram.Nonogram;
+
+/**
+ * A headless batch mode that solves many .non files on a thread pool and writes one CSV line per
+ * puzzle, for regression sweeps.
+ * <p>
+ * Usage: java nonogram.solver.BatchSolver [options] (directory | file.non)...
+ * <pre>
+ *   -threads N     solve N puzzles at a time on platform threads (default: the number of cores)
+ *   -virtual       run each puzzle on its own virtual thread (Java 21+, else falls back to -threads)
+ *   -timeout MS    give up on a puzzle after MS milliseconds of solving (default 10000, 0 for none)
+ *   -mode MODE     the search mode, BACKTRACK or CDCL (default BACKTRACK)
+ *   -out FILE      write the CSV to FILE rather than standard output
+ * </pre>
+ * Directories are searched recursively for .non files, which are solved in sorted order. The CSV
+ * columns are file, rows, cols, status, time_ms, rounds, nodes and message, where status is a
+ * Solver.Status, TIMEOUT or ERROR (the file could not be read), and rounds counts the Propagator's
+ * rounds (for CDCL, only those before the search starts).
+ * Each puzzle's timeout starts when its solve starts, not when it is queued.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class BatchSolver {
+	/**
+	 * Constructor
+	 *
+	 * @param files the .non files to solve, in output order
+	 */
+	public BatchSolver(List<Path> files) {
+		if (files == null)
+			throw new IllegalArgumentException("files cannot be null");
+		this.files = new ArrayList<>(files);
+	}
+
+	/**
+	 * The entry point of the batch solver.
+	 *
+	 * @param args the options and paths (see the class description)
+	 */
+	public static void main(String[] args) {
+		List<Path> paths   = new ArrayList<>();
+		int        threads = Runtime.getRuntime().availableProcessors();
+		boolean    virtual = false;
+		long       timeout = DEFAULT_TIMEOUT_MS;
+		String     mode    = "BACKTRACK";
+		String     out     = null;
+		try {
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-threads"))
+					threads = Integer.parseInt(CommandLine.value(args, ++i));
+				else if (arg.equals("-virtual"))
+					virtual = true;
+				else if (arg.equals("-timeout"))
+					timeout = Long.parseLong(CommandLine.value(args, ++i));
+				else if (arg.equals("-mode"))
+					mode = CommandLine.value(args, ++i).toUpperCase();
+				else if (arg.equals("-out"))
+					out = CommandLine.value(args, ++i);
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("unknown option (" + arg + ")");
+				else
+					paths.add(Paths.get(arg));
+			}
+			if (paths.isEmpty())
+				throw new IllegalArgumentException("no directories or files given");
+
+			BatchSolver batch = new BatchSolver(collect(paths));
+			batch.setThreads(threads);
+			batch.setVirtual(virtual);
+			batch.setTimeout(timeout);
+			batch.setSearchMode(Solver.SearchMode.valueOf(mode));
+			if (out == null) {
+				batch.run(System.out);
+			} else {
+				try (PrintStream ps = new PrintStream(new File(out), "UTF-8")) {
+					batch.run(ps);
+				}
+			}
+		} catch (IllegalArgumentException | IOException e) {
+			System.err.println("BatchSolver: " + e.getMessage());
+			System.err.println("usage: java nonogram.solver.BatchSolver [-threads N] [-virtual] [-timeout MS]"
+					+ " [-mode BACKTRACK|CDCL] [-out FILE] (directory | file.non)...");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Expand directories into the .non files beneath them, in sorted order
+	 *
+	 * @param paths directories and files
+	 * @return the files
+	 * @throws IOException if a directory cannot be read
+	 */
+	public static List<Path> collect(List<Path> paths) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (Path path : paths) {
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> walk = Files.walk(path)) {
+					files.addAll(walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".non"))
+							.sorted().collect(Collectors.toList()));
+				}
+			} else {
+				files.add(path);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Solve every file, writing the CSV header and then one line per file in input order
+	 *
+	 * @param out where to write the CSV
+	 */
+	public void run(PrintStream out) {
+		if (out == null)
+			throw new IllegalArgumentException("out cannot be null");
+		out.println(HEADER);
+		ExecutorService          pool  = newPool();
+		ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "BatchSolver-timer");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (Path file : files)
+				results.add(pool.submit(() -> solve(file, timer)));
+			for (int i=0; i<results.size(); i++) {
+				String line;
+				try {
+					line = results.get(i).get();
+				} catch (ExecutionException e) {
+					line = row(files.get(i), 0, 0, "ERROR", 0, 0, 0, String.valueOf(e.getCause()));
+				}
+				out.println(line);
+				out.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+			timer.shutdownNow();
+		}
+	}
+
+	/**
+	 * Set the number of platform threads
+	 *
+	 * @param threads the number of puzzles solved at a time
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be positive (" + threads + ")");
+		this.threads = threads;
+	}
+
+	/**
+	 * Choose virtual threads (one per puzzle) rather than a fixed pool, where the JVM has them
+	 *
+	 * @param virtual true for virtual threads
+	 */
+	public void setVirtual(boolean virtual) {
+		this.virtual = virtual;
+	}
+
+	/**
+	 * Set the time allowed for each puzzle
+	 *
+	 * @param timeoutMillis the timeout in milliseconds (0 for none)
+	 */
+	public void setTimeout(long timeoutMillis) {
+		if (timeoutMillis < 0)
+			throw new IllegalArgumentException("timeoutMillis cannot be negative (" + timeoutMillis + ")");
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Set the search mode (BACKTRACK or CDCL; a PARALLEL search would compete with the batch for cores)
+	 *
+	 * @param mode the search mode
+	 */
+	public void setSearchMode(Solver.SearchMode mode) {
+		if ((mode == null) || (mode == Solver.SearchMode.PARALLEL))
+			throw new IllegalArgumentException("mode must be BACKTRACK or CDCL (" + mode + ")");
+		this.mode = mode;
+	}
+
+	/**
+	 * Solve one file, returning its CSV line
+	 */
+	private String solve(Path file, ScheduledExecutorService timer) {
+		Nonogram puzzle;
+		try (Scanner fs = new Scanner(file.toFile(), "UTF-8")) {
+			puzzle = new Nonogram(fs);
+		} catch (FileNotFoundException | RuntimeException e) {
+			return row(file, 0, 0, "ERROR", 0, 0, 0, e.getMessage());
+		}
+		AtomicBoolean cancel = new AtomicBoolean();
+		Solver        solver = new Solver(puzzle);
+		solver.setSearchMode(mode);
+		solver.setCancelFlag(cancel);
+		long start = System.nanoTime();
+		ScheduledFuture<?> alarm = (timeoutMillis > 0)
+				? timer.schedule(() -> cancel.set(true), timeoutMillis, TimeUnit.MILLISECONDS) : null;
+		Solver.Status status;
+		try {
+			status = solver.search();
+		} finally {
+			if (alarm != null)
+				alarm.cancel(false);
+		}
+		long   elapsed = (System.nanoTime() - start) / 1_000_000;
+		String result  = (status == Solver.Status.CANCELLED) ? "TIMEOUT" : status.toString();
+		return row(file, puzzle.getNumRows(), puzzle.getNumCols(), result, elapsed,
+				solver.getPropagator().getRounds(), solver.getNodes(), "");
+	}
+
+	/**
+	 * Create the pool: virtual threads if asked for and available, otherwise a fixed pool
+	 */
+	private ExecutorService newPool() {
+		if (virtual) {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException e) {
+				System.err.println("BatchSolver: virtual threads are not available, using " + threads + " threads");
+			}
+		}
+		return Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Format one CSV line
+	 */
+	private static String row(Path file, int rows, int cols, String status, long millis, long rounds, long nodes, String message) {
+		return CommandLine.csv(file.toString()) + "," + rows + "," + cols + "," + status + "," + millis + ","
+				+ rounds + "," + nodes + "," + CommandLine.csv((message == null) ? "" : message);
+	}
+
+	/**
+	 * The default time allowed for each puzzle, in milliseconds
+	 */
+	public static final long DEFAULT_TIMEOUT_MS = 10000;
+
+	private static final String HEADER = "file,rows,cols,status,time_ms,rounds,nodes,message";
+
+	private final List<Path>  files;
+	private int               threads       = Runtime.getRuntime().availableProcessors();
+	private boolean           virtual       = false;
+	private long              timeoutMillis = DEFAULT_TIMEOUT_MS;
+	private Solver.SearchMode mode          = Solver.SearchMode.BACKTRACK;
+}
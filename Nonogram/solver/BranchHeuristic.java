@@ -0,0 +1,18 @@
+package nonogram.solver;
+
+/**
+ * Chooses the cell to branch on during search. Implementations may be shared between the
+ * threads of a parallel search, so should be stateless or thread-safe.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public interface BranchHeuristic {
+	/**
+	 * Choose an UNKNOWN cell of a grid to branch on
+	 *
+	 * @param grid the grid, which has at least one UNKNOWN cell
+	 * @return the row-major index (row*numCols + col) of the chosen cell
+	 */
+	int selectCell(Grid grid);
+}
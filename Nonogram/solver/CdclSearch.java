@@ -0,0 +1,656 @@
+package nonogram.solver;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nonogram.BitLine;
+import nonogram.BitLineSolver;
+import nonogram.LineSolver;
+import nonogram.Nonogram;
+
+/**
+ * Clause-learning (CDCL-style) search for puzzles on which plain backtracking thrashes.
+ * <p>
+ * Each cell is a boolean variable (FULL or EMPTY). Propagation runs the line solver over the rows
+ * and columns whose cells have changed, together with unit propagation over the learned clauses.
+ * Every cell fixed by a line is explained by the cells of that line that were already assigned
+ * when the line was solved, and a line with no valid placement is explained by all its assigned
+ * cells. On a conflict these explanations are resolved back to the first unique implication point
+ * of the current decision level; the resulting clause (a "nogood") is learned, and the search
+ * jumps back to the second-highest level in that clause rather than just undoing the last guess.
+ * <p>
+ * Decisions take the unassigned cell with the highest activity (bumped for the cells in each
+ * learned clause) and reuse the value the cell last had. The search restarts on the Luby
+ * sequence, and the learned clauses are thinned out at restarts when there are too many.
+ * <p>
+ * A CdclSearch is not thread-safe; use one per thread.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class CdclSearch {
+	/**
+	 * Search for a solution reachable from a grid. The grid itself is not changed.
+	 *
+	 * @param grid the starting grid
+	 * @return a solved copy of the grid, or null if there is no solution (or the search was cancelled)
+	 */
+	public Grid search(Grid grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid cannot be null");
+		init(grid);
+		cancelled = false;
+
+		// the starting cell states are level 0 facts
+		for (int v=0; v<numVars; v++) {
+			int state = grid.getState(v);
+			if (state != Nonogram.UNKNOWN)
+				assign(literal(v, state), NO_REASON, 0);
+		}
+		int  restartLimit = RESTART_BASE * luby(restarts + 1);
+		long sinceRestart = 0;
+		while (true) {
+			if ((cancel != null) && cancel.get()) {
+				cancelled = true;
+				return null;
+			}
+			int[] conflict = propagate();
+			if (conflict != null) {
+				conflicts++;
+				sinceRestart++;
+				if (decisionLevel() == 0)
+					return null; // the conflict does not depend on any guess
+				int[] learnt = analyze(conflict);
+				backtrack(backjumpLevel);
+				if (learnt.length == 1) {
+					assign(learnt[0], NO_REASON, 0);
+				} else {
+					int c = addClause(learnt);
+					assign(learnt[0], c, 0);
+				}
+				learned++;
+				varInc *= VAR_DECAY_INV;
+				continue;
+			}
+			if (trailSize == numVars)
+				return solution(grid);
+			if (sinceRestart >= restartLimit) {
+				restarts++;
+				sinceRestart = 0;
+				restartLimit = RESTART_BASE * luby(restarts + 1);
+				backtrack(0);
+				if (numClauses - liveAtLastReduce > maxLearnts)
+					reduce();
+				continue;
+			}
+			decide();
+		}
+	}
+
+	/**
+	 * Set a flag that, once raised by another thread, makes the search give up
+	 *
+	 * @param cancel the cancel flag (or null for none)
+	 */
+	public void setCancelFlag(AtomicBoolean cancel) {
+		this.cancel = cancel;
+	}
+
+	/**
+	 * Was the last search given up because the cancel flag was raised?
+	 *
+	 * @return true if the last search was cancelled, otherwise false
+	 */
+	public boolean wasCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Retrieve the number of conflicts met
+	 *
+	 * @return the number of conflicts
+	 */
+	public long getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * Retrieve the number of clauses learned (including unit clauses, which are not stored)
+	 *
+	 * @return the number of learned clauses
+	 */
+	public long getLearned() {
+		return learned;
+	}
+
+	/**
+	 * Retrieve the number of restarts
+	 *
+	 * @return the number of restarts
+	 */
+	public long getRestarts() {
+		return restarts;
+	}
+
+	/**
+	 * Retrieve the number of decisions (guesses) made
+	 *
+	 * @return the number of decisions
+	 */
+	public long getDecisions() {
+		return decisions;
+	}
+
+	/**
+	 * Retrieve the number of lines solved during propagation
+	 *
+	 * @return the number of line solves
+	 */
+	public long getLineSolves() {
+		return lineSolves;
+	}
+
+	/**
+	 * Retrieve the deepest decision level reached
+	 *
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Set up the variables, lines and clause database for a grid
+	 */
+	private void init(Grid grid) {
+		numRows = grid.getNumRows();
+		numCols = grid.getNumCols();
+		numVars = numRows*numCols;
+		nums    = new int[numRows + numCols][];
+		for (int row=0; row<numRows; row++)
+			nums[row] = grid.getRowNums(row);
+		for (int col=0; col<numCols; col++)
+			nums[numRows + col] = grid.getColNums(col);
+
+		value     = new byte[numVars];
+		level     = new int[numVars];
+		reason    = new int[numVars];
+		reasonPos = new int[numVars];
+		trailPos  = new int[numVars];
+		trail     = new int[numVars];
+		trailLim  = new int[numVars + 1];
+		activity  = new double[numVars];
+		phase     = new byte[numVars];
+		seen      = new boolean[numVars];
+		Arrays.fill(value, (byte) Nonogram.UNKNOWN);
+		Arrays.fill(phase, (byte) Nonogram.FULL);
+		trailSize = 0;
+		qhead     = 0;
+		levels    = 0;
+
+		clauses          = new int[64][];
+		numClauses       = 0;
+		liveAtLastReduce = 0;
+		watches          = new int[2*numVars][];
+		watchCount       = new int[2*numVars];
+		maxLearnts       = Math.max(MIN_LEARNTS, numVars);
+		varInc           = 1.0;
+
+		lineQueue = new int[numRows + numCols];
+		queued    = new boolean[numRows + numCols];
+		qFront    = 0;
+		qCount    = 0;
+		rowBits   = new BitLine(numCols);
+		colBits   = new BitLine(numRows);
+		learnt    = new int[numVars];
+
+		conflicts  = 0;
+		learned    = 0;
+		restarts   = 0;
+		decisions  = 0;
+		lineSolves = 0;
+		maxDepth   = 0;
+		for (int id=0; id<numRows+numCols; id++)
+			enqueue(id);
+	}
+
+	// ---- literals: 2*v for cell v FULL, 2*v+1 for cell v EMPTY ----
+
+	private static int literal(int v, int state) {
+		return 2*v + ((state == Nonogram.EMPTY) ? 1 : 0);
+	}
+
+	private static int var(int lit) {
+		return lit >>> 1;
+	}
+
+	private static int state(int lit) {
+		return ((lit & 1) == 0) ? Nonogram.FULL : Nonogram.EMPTY;
+	}
+
+	/**
+	 * Is a literal true (1), false (-1) or unassigned (0)?
+	 */
+	private int litValue(int lit) {
+		int v = value[var(lit)];
+		if (v == Nonogram.UNKNOWN)
+			return 0;
+		return (v == state(lit)) ? 1 : -1;
+	}
+
+	/**
+	 * The literal that is false under the current value of an assigned cell
+	 */
+	private int falseLit(int v) {
+		return literal(v, value[v]) ^ 1;
+	}
+
+	private int decisionLevel() {
+		return levels;
+	}
+
+	/**
+	 * Make a literal true, recording why, and queue the crossing lines of its cell
+	 */
+	private void assign(int lit, int why, int pos) {
+		int v = var(lit);
+		value[v]     = (byte) state(lit);
+		level[v]     = levels;
+		reason[v]    = why;
+		reasonPos[v] = pos;
+		trailPos[v]  = trailSize;
+		trail[trailSize++] = lit;
+		enqueue(v / numCols);
+		enqueue(numRows + v % numCols);
+	}
+
+	/**
+	 * Choose the next decision: the most active unassigned cell, with its saved phase
+	 */
+	private void decide() {
+		int    best    = -1;
+		double bestAct = -1;
+		for (int v=0; v<numVars; v++) {
+			if ((value[v] == Nonogram.UNKNOWN) && (activity[v] > bestAct)) {
+				best    = v;
+				bestAct = activity[v];
+			}
+		}
+		decisions++;
+		trailLim[levels++] = trailSize;
+		if (levels > maxDepth)
+			maxDepth = levels;
+		assign(literal(best, phase[best]), NO_REASON, 0);
+	}
+
+	/**
+	 * Undo every assignment above a decision level
+	 */
+	private void backtrack(int target) {
+		if (levels <= target)
+			return;
+		int start = trailLim[target];
+		for (int i=trailSize-1; i>=start; i--) {
+			int v = var(trail[i]);
+			phase[v] = value[v];
+			value[v] = (byte) Nonogram.UNKNOWN;
+		}
+		trailSize = start;
+		qhead     = Math.min(qhead, start);
+		levels    = target;
+		clearQueue(); // the state is as it was after propagation at the target level
+	}
+
+	/**
+	 * Propagate learned clauses and lines to a fixpoint
+	 *
+	 * @return the literals of a conflicting clause (all false), or null if there is no conflict
+	 */
+	private int[] propagate() {
+		while (true) {
+			while (qhead < trailSize) {
+				int[] conflict = propagateClauses(trail[qhead++] ^ 1);
+				if (conflict != null)
+					return conflict;
+			}
+			if (qCount == 0)
+				return null;
+			int[] conflict = propagateLine(dequeue());
+			if (conflict != null)
+				return conflict;
+		}
+	}
+
+	/**
+	 * Visit the clauses watching a literal that has just become false
+	 */
+	private int[] propagateClauses(int falseLit) {
+		int[] ws = watches[falseLit];
+		int   n  = watchCount[falseLit];
+		int   i  = 0;
+		int   j  = 0;
+		while (i < n) {
+			int   c      = ws[i++];
+			int[] clause = clauses[c];
+			if (clause[0] == falseLit) { // keep the false literal in slot 1
+				clause[0] = clause[1];
+				clause[1] = falseLit;
+			}
+			if (litValue(clause[0]) == 1) {
+				ws[j++] = c;
+				continue;
+			}
+			boolean moved = false;
+			for (int k=2; k<clause.length; k++) {
+				if (litValue(clause[k]) != -1) {
+					clause[1] = clause[k];
+					clause[k] = falseLit;
+					watch(clause[1], c);
+					moved = true;
+					break;
+				}
+			}
+			if (moved)
+				continue;
+			ws[j++] = c;
+			if (litValue(clause[0]) == -1) {
+				while (i < n)
+					ws[j++] = ws[i++];
+				watchCount[falseLit] = j;
+				return clause;
+			}
+			assign(clause[0], c, 0);
+		}
+		watchCount[falseLit] = j;
+		return null;
+	}
+
+	/**
+	 * Solve one line against the current assignment, assigning the cells it forces
+	 */
+	private int[] propagateLine(int id) {
+		lineSolves++;
+		boolean isRow = id < numRows;
+		int     len   = isRow ? numCols : numRows;
+		BitLine bits  = isRow ? rowBits : colBits;
+		for (int i=0; i<len; i++)
+			bits.set(i, value[cell(id, i)]);
+		int changed = solver.solve(nums[id], bits);
+		if (changed == LineSolver.CONTRADICTION) {
+			int n = 0;
+			for (int i=0; i<len; i++) {
+				int v = cell(id, i);
+				if (value[v] != Nonogram.UNKNOWN)
+					learnt[n++] = falseLit(v);
+			}
+			return Arrays.copyOf(learnt, n);
+		}
+		if (changed > 0) {
+			int pos = trailSize; // the cells assigned before this point explain the deductions
+			for (int i=0; i<len; i++) {
+				int v = cell(id, i);
+				if (value[v] == Nonogram.UNKNOWN) {
+					int state = bits.get(i);
+					if (state != Nonogram.UNKNOWN)
+						assign(literal(v, state), LINE_REASON - id, pos);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The cell (variable) at a position in a line
+	 */
+	private int cell(int id, int i) {
+		return (id < numRows) ? (id*numCols + i) : (i*numCols + (id - numRows));
+	}
+
+	/**
+	 * Derive a learned clause from a conflict by resolving back to the first unique implication point.
+	 * Sets backjumpLevel; the asserting literal is placed first in the result.
+	 */
+	private int[] analyze(int[] conflict) {
+		int n       = 1; // slot 0 is reserved for the asserting literal
+		int counter = 0;
+		int p       = -1;
+		int idx     = trailSize - 1;
+		int current = decisionLevel();
+		int[] clause = conflict;
+		int   lineId = -1;
+		while (true) {
+			if (lineId >= 0) {
+				// a line reason: the cells of the line assigned before the deduction
+				int len = (lineId < numRows) ? numCols : numRows;
+				int pos = reasonPos[var(p)];
+				for (int i=0; i<len; i++) {
+					int v = cell(lineId, i);
+					if ((value[v] != Nonogram.UNKNOWN) && (trailPos[v] < pos))
+						n = mark(v, current, n);
+				}
+			} else {
+				for (int lit : clause) {
+					if (lit == p)
+						continue;
+					n = mark(var(lit), current, n);
+				}
+			}
+			counter += pendingCurrent;
+			pendingCurrent = 0;
+
+			while (!seen[var(trail[idx])])
+				idx--;
+			p = trail[idx--];
+			int v = var(p);
+			seen[v] = false;
+			counter--;
+			if (counter == 0)
+				break;
+			int why = reason[v];
+			if (why <= LINE_REASON) {
+				lineId = LINE_REASON - why;
+				clause = null;
+			} else {
+				lineId = -1;
+				clause = clauses[why];
+			}
+		}
+		learnt[0] = p ^ 1;
+
+		// the backjump level is the highest level among the other literals, which goes in slot 1
+		backjumpLevel = 0;
+		for (int i=1; i<n; i++) {
+			int v = var(learnt[i]);
+			seen[v] = false;
+			if (level[v] > backjumpLevel) {
+				backjumpLevel = level[v];
+				int t = learnt[1];
+				learnt[1] = learnt[i];
+				learnt[i] = t;
+			}
+		}
+		return Arrays.copyOf(learnt, n);
+	}
+
+	/**
+	 * Mark a variable met during analysis: current-level variables are counted, lower ones join the clause
+	 */
+	private int mark(int v, int current, int n) {
+		if (seen[v] || (level[v] == 0))
+			return n;
+		seen[v] = true;
+		bump(v);
+		if (level[v] == current)
+			pendingCurrent++;
+		else
+			learnt[n++] = falseLit(v);
+		return n;
+	}
+
+	/**
+	 * Increase the activity of a variable, rescaling all activities if they grow too large
+	 */
+	private void bump(int v) {
+		activity[v] += varInc;
+		if (activity[v] > 1e100) {
+			for (int i=0; i<numVars; i++)
+				activity[i] *= 1e-100;
+			varInc *= 1e-100;
+		}
+	}
+
+	/**
+	 * Store a learned clause of at least two literals and watch its first two
+	 */
+	private int addClause(int[] clause) {
+		if (numClauses == clauses.length)
+			clauses = Arrays.copyOf(clauses, 2*clauses.length);
+		int c = numClauses++;
+		clauses[c] = clause;
+		watch(clause[0], c);
+		watch(clause[1], c);
+		return c;
+	}
+
+	private void watch(int lit, int c) {
+		int[] ws = watches[lit];
+		if (ws == null) {
+			ws = new int[4];
+			watches[lit] = ws;
+		} else if (watchCount[lit] == ws.length) {
+			ws = Arrays.copyOf(ws, 2*ws.length);
+			watches[lit] = ws;
+		}
+		ws[watchCount[lit]++] = c;
+	}
+
+	/**
+	 * Drop the longer half of the learned clauses (called at level 0, where no clause is needed as a reason)
+	 */
+	private void reduce() {
+		for (int i=0; i<trailSize; i++)
+			reason[var(trail[i])] = NO_REASON;
+		int[][] kept = Arrays.copyOf(clauses, numClauses);
+		Arrays.sort(kept, (a, b) -> Integer.compare(a.length, b.length));
+		int keep = Math.max(numClauses/2, 1);
+		Arrays.fill(watchCount, 0);
+		numClauses = 0;
+		for (int i=0; i<keep; i++)
+			addClause(kept[i]);
+		Arrays.fill(clauses, numClauses, clauses.length, null);
+		liveAtLastReduce = numClauses;
+		maxLearnts       = maxLearnts + maxLearnts/10;
+	}
+
+	/**
+	 * Build the solved grid from the complete assignment
+	 */
+	private Grid solution(Grid grid) {
+		Grid result = grid.copy();
+		for (int v=0; v<numVars; v++)
+			result.setState(v, value[v]);
+		return result;
+	}
+
+	private void enqueue(int id) {
+		if (queued[id])
+			return;
+		queued[id] = true;
+		lineQueue[(qFront + qCount) % lineQueue.length] = id;
+		qCount++;
+	}
+
+	private int dequeue() {
+		int id = lineQueue[qFront];
+		qFront = (qFront + 1) % lineQueue.length;
+		qCount--;
+		queued[id] = false;
+		return id;
+	}
+
+	private void clearQueue() {
+		while (qCount > 0)
+			dequeue();
+	}
+
+	/**
+	 * The Luby sequence (1,1,2,1,1,2,4,...) used to space restarts
+	 */
+	static int luby(long i) {
+		long size = 1;
+		int  seq  = 0;
+		while (size < i + 1) {
+			seq++;
+			size = 2*size + 1;
+		}
+		long x = i;
+		while (size - 1 != x) {
+			size = (size - 1) >> 1;
+			seq--;
+			x = x % size;
+		}
+		return 1 << seq;
+	}
+
+	private static final int    NO_REASON     = -1;
+	private static final int    LINE_REASON   = -2;   // reason = LINE_REASON - lineId for a line deduction
+	private static final int    RESTART_BASE  = 100;  // conflicts per unit of the Luby sequence
+	private static final int    MIN_LEARNTS   = 2000;
+	private static final double VAR_DECAY_INV = 1/0.95;
+
+	private final BitLineSolver solver = new BitLineSolver();
+
+	// the puzzle
+	private int     numRows;
+	private int     numCols;
+	private int     numVars;
+	private int[][] nums;      // patterns of the rows, then the columns
+
+	// the assignment
+	private byte[]  value;     // cell states
+	private int[]   level;     // decision level of each assigned cell
+	private int[]   reason;    // NO_REASON, a clause index, or LINE_REASON - lineId
+	private int[]   reasonPos; // for a line reason, the trail size when the line was solved
+	private int[]   trailPos;  // position of each assigned cell on the trail
+	private int[]   trail;     // assigned literals in order
+	private int[]   trailLim;  // trail size at the start of each decision level
+	private int     trailSize;
+	private int     qhead;     // next trail literal for clause propagation
+	private int     levels;    // current decision level
+
+	// decisions
+	private double[]  activity;
+	private double    varInc;
+	private byte[]    phase;   // the last value of each cell
+	private boolean[] seen;
+	private int[]     learnt;  // work array for analysis
+	private int       pendingCurrent;
+	private int       backjumpLevel;
+
+	// learned clauses
+	private int[][] clauses;
+	private int     numClauses;
+	private int     liveAtLastReduce;
+	private int     maxLearnts;
+	private int[][] watches;    // clause indices watching each literal
+	private int[]   watchCount;
+
+	// lines waiting to be solved
+	private int[]     lineQueue;
+	private boolean[] queued;
+	private int       qFront;
+	private int       qCount;
+	private BitLine   rowBits;
+	private BitLine   colBits;
+
+	// counters
+	private long conflicts;
+	private long learned;
+	private long restarts;
+	private long decisions;
+	private long lineSolves;
+	private int  maxDepth;
+
+	private AtomicBoolean cancel    = null;
+	private boolean       cancelled = false;
+}
@@ -0,0 +1,37 @@
+package nonogram.solver;
+
+/**
+ * Helpers shared by the command-line tools (BatchSolver, DifficultyRater and PuzzleGenerator).
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+final class CommandLine {
+	private CommandLine() {
+	}
+
+	/**
+	 * The argument following an option
+	 *
+	 * @param args the arguments
+	 * @param i the index of the value (one past the option)
+	 * @return the value
+	 */
+	static String value(String[] args, int i) {
+		if (i >= args.length)
+			throw new IllegalArgumentException("missing value for " + args[i-1]);
+		return args[i];
+	}
+
+	/**
+	 * Quote a CSV field if it contains a comma, quote or line break
+	 *
+	 * @param field the field
+	 * @return the field, quoted if need be
+	 */
+	static String csv(String field) {
+		if ((field.indexOf(',') < 0) && (field.indexOf('"') < 0) && (field.indexOf('\n') < 0) && (field.indexOf('\r') < 0))
+			return field;
+		return "\"" + field.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -0,0 +1,241 @@
+package nonogram.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import nonogram.Nonogram;
+import nonogram.NonogramReader;
+
+/**
+ * Rates the difficulty of puzzles from the way they are solved (see DifficultyReport).
+ * <p>
+ * A puzzle is taken through the solver's stages in turn, each continuing from where the last
+ * stopped: propagation with the overlap rules only (an OverlapLineSolver), propagation with the
+ * full line solver, failed-literal probing, and finally a BacktrackingSearch. The rounds, cells
+ * fixed, probes, nodes and depth of each stage go into the report. Every stage after the first is
+ * skipped once the puzzle is solved, so easy puzzles cost only a few line solves.
+ * <p>
+ * A DifficultyRater holds only its settings, so rate() may be called from many threads at once;
+ * rateAll() rates a corpus in parallel.
+ * <p>
+ * Usage: java nonogram.solver.DifficultyRater [-sort] [-timeout MS] [-out FILE] (directory | file.non)...
+ * writes one CSV line per puzzle (the files may be packs): file, puzzle, rows, cols, level, score,
+ * simple_rounds, line_rounds, probe_rounds, probes, nodes and max_depth; -sort orders the lines
+ * from easiest to hardest. A level of SEARCH+ means the search timed out, and its nodes are a lower bound.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class DifficultyRater {
+	/**
+	 * Constructor, probing in the common fork/join pool
+	 */
+	public DifficultyRater() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param pool the pool to probe in
+	 */
+	public DifficultyRater(ForkJoinPool pool) {
+		if (pool == null)
+			throw new IllegalArgumentException("pool cannot be null");
+		this.pool = pool;
+	}
+
+	/**
+	 * The entry point of the rater.
+	 *
+	 * @param args the options and paths (see the class description)
+	 */
+	public static void main(String[] args) {
+		List<Path> paths   = new ArrayList<>();
+		boolean    sort    = false;
+		long       timeout = DEFAULT_TIMEOUT_MS;
+		String     out     = null;
+		try {
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-sort"))
+					sort = true;
+				else if (arg.equals("-timeout"))
+					timeout = Long.parseLong(CommandLine.value(args, ++i));
+				else if (arg.equals("-out"))
+					out = CommandLine.value(args, ++i);
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("unknown option (" + arg + ")");
+				else
+					paths.add(Paths.get(arg));
+			}
+			if (paths.isEmpty())
+				throw new IllegalArgumentException("no directories or files given");
+
+			List<String>   names   = new ArrayList<>();
+			List<Nonogram> puzzles = new ArrayList<>();
+			for (Path file : BatchSolver.collect(paths)) {
+				try (NonogramReader reader = new NonogramReader(file)) {
+					while (reader.hasNext()) {
+						puzzles.add(reader.next());
+						names.add(CommandLine.csv(file.toString()) + "," + reader.getCount());
+					}
+				} catch (IOException | RuntimeException e) {
+					System.err.println(file + ": " + e.getMessage());
+				}
+			}
+			DifficultyRater rater = new DifficultyRater();
+			rater.setTimeout(timeout);
+			List<DifficultyReport> reports = rater.rateAll(puzzles);
+			List<Integer>          order   = new ArrayList<>();
+			for (int i=0; i<puzzles.size(); i++)
+				order.add(i);
+			if (sort)
+				order.sort(Comparator.comparing(reports::get));
+			try (PrintStream ps = (out == null) ? null : new PrintStream(new File(out), "UTF-8")) {
+				PrintStream csv = (ps == null) ? System.out : ps;
+				csv.println(HEADER);
+				for (int i : order) {
+					DifficultyReport r = reports.get(i);
+					csv.println(names.get(i) + "," + puzzles.get(i).getNumRows() + "," + puzzles.get(i).getNumCols()
+							+ "," + r.getLevel() + (r.isTimedOut() ? "+" : "") + "," + String.format("%.4f", r.getScore())
+							+ "," + r.getSimpleRounds() + "," + r.getLineRounds() + "," + r.getProbeRounds()
+							+ "," + r.getProbes() + "," + r.getNodes() + "," + r.getMaxDepth());
+				}
+			}
+		} catch (IllegalArgumentException | IOException e) {
+			System.err.println("DifficultyRater: " + e.getMessage());
+			System.err.println("usage: java nonogram.solver.DifficultyRater [-sort] [-timeout MS] [-out FILE]"
+					+ " (directory | file.non)...");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Rate a puzzle from its current cell states. The puzzle itself is not changed.
+	 *
+	 * @param puzzle the puzzle
+	 * @return the report
+	 */
+	public DifficultyReport rate(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		Grid       grid       = new Grid(puzzle);
+		int        numCells   = grid.getNumRows()*grid.getNumCols();
+		Propagator propagator = new Propagator(grid.getNumRows(), grid.getNumCols());
+
+		// the overlap rules
+		int unknown = grid.getUnknownCount();
+		propagator.setSimple(true);
+		if (!propagator.propagate(grid))
+			return unsolvable(numCells, propagator.getRounds(), unknown - grid.getUnknownCount(), 0, 0);
+		long simpleRounds = propagator.getRounds();
+		int  simpleFixed  = unknown - grid.getUnknownCount();
+		if (grid.isComplete())
+			return new DifficultyReport(DifficultyReport.Level.SIMPLE, numCells, simpleRounds, simpleFixed, 0, 0, 0, 0, 0, 0, 0, false);
+
+		// the full line solver
+		unknown = grid.getUnknownCount();
+		propagator.setSimple(false);
+		propagator.resetCounters();
+		boolean ok         = propagator.propagate(grid);
+		long    lineRounds = propagator.getRounds();
+		int     lineFixed  = unknown - grid.getUnknownCount();
+		if (!ok)
+			return unsolvable(numCells, simpleRounds, simpleFixed, lineRounds, lineFixed);
+		if (grid.isComplete())
+			return new DifficultyReport(DifficultyReport.Level.LINE, numCells, simpleRounds, simpleFixed, lineRounds, lineFixed,
+					0, 0, 0, 0, 0, false);
+
+		// probing
+		unknown = grid.getUnknownCount();
+		Prober prober = new Prober(pool);
+		if (!prober.probe(grid))
+			return unsolvable(numCells, simpleRounds, simpleFixed, lineRounds, lineFixed);
+		int  probeRounds = prober.getRounds();
+		long probes      = prober.getProbes();
+		int  probeFixed  = unknown - grid.getUnknownCount();
+		if (grid.isComplete())
+			return new DifficultyReport(DifficultyReport.Level.PROBING, numCells, simpleRounds, simpleFixed, lineRounds, lineFixed,
+					probeRounds, probes, probeFixed, 0, 0, false);
+
+		// search
+		BacktrackingSearch search = new BacktrackingSearch(propagator, new MostConstrainedHeuristic());
+		AtomicBoolean      cancel = new AtomicBoolean();
+		search.setCancelFlag(cancel);
+		ScheduledFuture<?> alarm = (timeoutMillis > 0)
+				? TIMER.schedule(() -> cancel.set(true), timeoutMillis, TimeUnit.MILLISECONDS) : null;
+		Grid solution;
+		try {
+			solution = search.search(grid);
+		} finally {
+			if (alarm != null)
+				alarm.cancel(false);
+		}
+		if ((solution == null) && !search.wasCancelled())
+			return unsolvable(numCells, simpleRounds, simpleFixed, lineRounds, lineFixed);
+		return new DifficultyReport(DifficultyReport.Level.SEARCH, numCells, simpleRounds, simpleFixed, lineRounds, lineFixed,
+				probeRounds, probes, probeFixed, search.getNodes(), search.getMaxDepth(), search.wasCancelled());
+	}
+
+	/**
+	 * Rate many puzzles in parallel (in the common fork/join pool)
+	 *
+	 * @param puzzles the puzzles
+	 * @return the reports, in the same order as the puzzles
+	 */
+	public List<DifficultyReport> rateAll(List<Nonogram> puzzles) {
+		if (puzzles == null)
+			throw new IllegalArgumentException("puzzles cannot be null");
+		return puzzles.parallelStream().map(this::rate).collect(Collectors.toList());
+	}
+
+	/**
+	 * Set the time allowed for the search stage of each puzzle
+	 *
+	 * @param timeoutMillis the timeout in milliseconds (0 for none)
+	 */
+	public void setTimeout(long timeoutMillis) {
+		if (timeoutMillis < 0)
+			throw new IllegalArgumentException("timeoutMillis cannot be negative (" + timeoutMillis + ")");
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * The report for a puzzle found to have no solution
+	 */
+	private static DifficultyReport unsolvable(int numCells, long simpleRounds, int simpleFixed, long lineRounds, int lineFixed) {
+		return new DifficultyReport(DifficultyReport.Level.UNSOLVABLE, numCells, simpleRounds, simpleFixed, lineRounds, lineFixed,
+				0, 0, 0, 0, 0, false);
+	}
+
+	/**
+	 * The default time allowed for the search stage of each puzzle, in milliseconds
+	 */
+	public static final long DEFAULT_TIMEOUT_MS = 10000;
+
+	private static final String HEADER = "file,puzzle,rows,cols,level,score,simple_rounds,line_rounds,probe_rounds,probes,nodes,max_depth";
+
+	// raises the cancel flags of searches that run out of time
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "DifficultyRater-timer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final ForkJoinPool pool;
+	private volatile long      timeoutMillis = DEFAULT_TIMEOUT_MS;
+}
@@ -0,0 +1,229 @@
+package nonogram.solver;
+
+/**
+ * The difficulty of a puzzle, as rated by a DifficultyRater from the way it is solved.
+ * <p>
+ * The level is the first stage of the solver that finishes the puzzle: the overlap rules alone,
+ * the full line solver, probing, or search. The score orders puzzles by level and then by the
+ * effort spent in that level: it is the level's ordinal plus a fraction, below 1, that grows with
+ * the rounds (SIMPLE and LINE), probes per cell (PROBING) or search nodes (SEARCH) needed. An
+ * UNSOLVABLE puzzle has an infinite score, so it sorts last.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class DifficultyReport implements Comparable<DifficultyReport> {
+	/**
+	 * The first stage that finishes a puzzle, from easiest to hardest
+	 */
+	public enum Level {
+		/** the overlap rules alone solve it */
+		SIMPLE,
+		/** the full line solver is needed */
+		LINE,
+		/** line logic stalls, and failed-literal probing finishes it */
+		PROBING,
+		/** a search (guessing) is needed */
+		SEARCH,
+		/** there is no solution */
+		UNSOLVABLE
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param level the first stage that finishes the puzzle
+	 * @param numCells the number of cells of the puzzle
+	 * @param simpleRounds the propagation rounds with the overlap rules
+	 * @param simpleFixed the cells fixed by the overlap rules
+	 * @param lineRounds the propagation rounds with the full line solver, after the overlap rules
+	 * @param lineFixed the cells fixed by the full line solver, after the overlap rules
+	 * @param probeRounds the probing rounds (0 if line logic finished the puzzle)
+	 * @param probes the cells probed
+	 * @param probeFixed the cells fixed by probing
+	 * @param nodes the search nodes (0 unless search was needed)
+	 * @param maxDepth the deepest level of guesses
+	 * @param timedOut whether the search was given up before finishing
+	 */
+	DifficultyReport(Level level, int numCells, long simpleRounds, int simpleFixed, long lineRounds, int lineFixed,
+			int probeRounds, long probes, int probeFixed, long nodes, int maxDepth, boolean timedOut) {
+		this.level        = level;
+		this.numCells     = numCells;
+		this.simpleRounds = simpleRounds;
+		this.simpleFixed  = simpleFixed;
+		this.lineRounds   = lineRounds;
+		this.lineFixed    = lineFixed;
+		this.probeRounds  = probeRounds;
+		this.probes       = probes;
+		this.probeFixed   = probeFixed;
+		this.nodes        = nodes;
+		this.maxDepth     = maxDepth;
+		this.timedOut     = timedOut;
+	}
+
+	/**
+	 * Retrieve the first stage that finishes the puzzle
+	 *
+	 * @return the level
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Do the overlap rules alone solve the puzzle?
+	 *
+	 * @return true if the full line solver is not needed, otherwise false
+	 */
+	public boolean isSimple() {
+		return level == Level.SIMPLE;
+	}
+
+	/**
+	 * Retrieve the score: the level's ordinal plus a fraction for the effort within it
+	 *
+	 * @return the score (infinite if UNSOLVABLE)
+	 */
+	public double getScore() {
+		switch (level) {
+		case SIMPLE:
+			return fraction(simpleRounds, 20);
+		case LINE:
+			return 1 + fraction(lineRounds, 20);
+		case PROBING:
+			return 2 + fraction((double) probes / numCells, 2);
+		case SEARCH:
+			return 3 + fraction(nodes, 1000);
+		default:
+			return Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Retrieve the propagation rounds with the overlap rules
+	 *
+	 * @return the number of rounds
+	 */
+	public long getSimpleRounds() {
+		return simpleRounds;
+	}
+
+	/**
+	 * Retrieve the cells fixed by the overlap rules
+	 *
+	 * @return the number of cells
+	 */
+	public int getSimpleFixed() {
+		return simpleFixed;
+	}
+
+	/**
+	 * Retrieve the propagation rounds with the full line solver, after the overlap rules
+	 *
+	 * @return the number of rounds
+	 */
+	public long getLineRounds() {
+		return lineRounds;
+	}
+
+	/**
+	 * Retrieve the cells fixed by the full line solver, after the overlap rules
+	 *
+	 * @return the number of cells
+	 */
+	public int getLineFixed() {
+		return lineFixed;
+	}
+
+	/**
+	 * Retrieve the probing rounds
+	 *
+	 * @return the number of rounds (0 if probing was not needed)
+	 */
+	public int getProbeRounds() {
+		return probeRounds;
+	}
+
+	/**
+	 * Retrieve the cells probed
+	 *
+	 * @return the number of probes
+	 */
+	public long getProbes() {
+		return probes;
+	}
+
+	/**
+	 * Retrieve the cells fixed by probing
+	 *
+	 * @return the number of cells
+	 */
+	public int getProbeFixed() {
+		return probeFixed;
+	}
+
+	/**
+	 * Retrieve the search nodes (guesses)
+	 *
+	 * @return the number of nodes (0 if search was not needed)
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Retrieve the deepest level of guesses
+	 *
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Was the search given up before finishing? If so, the nodes and score are lower bounds.
+	 *
+	 * @return true if the search timed out, otherwise false
+	 */
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	/**
+	 * Compare by score, easiest first
+	 *
+	 * @param other the report to compare with
+	 * @return negative, zero or positive as this puzzle is easier than, as hard as, or harder than the other
+	 */
+	@Override
+	public int compareTo(DifficultyReport other) {
+		return Double.compare(getScore(), other.getScore());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %.3f (simple %d rounds/%d cells, line %d rounds/%d cells, probing %d rounds/%d probes/%d cells,"
+				+ " search %d nodes/depth %d%s)", level, getScore(), simpleRounds, simpleFixed, lineRounds, lineFixed,
+				probeRounds, probes, probeFixed, nodes, maxDepth, timedOut ? ", timed out" : "");
+	}
+
+	/**
+	 * A fraction in [0,1) growing with the effort, reaching 1/2 at the given half-way effort
+	 */
+	private static double fraction(double effort, double half) {
+		return effort / (effort + half);
+	}
+
+	private final Level   level;
+	private final int     numCells;
+	private final long    simpleRounds;
+	private final int     simpleFixed;
+	private final long    lineRounds;
+	private final int     lineFixed;
+	private final int     probeRounds;
+	private final long    probes;
+	private final int     probeFixed;
+	private final long    nodes;
+	private final int     maxDepth;
+	private final boolean timedOut;
+}
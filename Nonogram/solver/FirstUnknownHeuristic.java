@@ -0,0 +1,26 @@
+package nonogram.solver;
+
+import nonogram.Nonogram;
+
+/**
+ * Branch on the first UNKNOWN cell in row-major order.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class FirstUnknownHeuristic implements BranchHeuristic {
+	/**
+	 * Choose the first UNKNOWN cell in row-major order
+	 *
+	 * @param grid the grid
+	 * @return the row-major index of the chosen cell
+	 */
+	@Override
+	public int selectCell(Grid grid) {
+		int size = grid.getNumRows()*grid.getNumCols();
+		for (int idx=0; idx<size; idx++)
+			if (grid.getState(idx) == Nonogram.UNKNOWN)
+				return idx;
+		throw new IllegalArgumentException("grid has no unknown cells");
+	}
+}
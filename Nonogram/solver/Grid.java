@@ -0,0 +1,283 @@
+package nonogram.solver;
+
+import java.util.Arrays;
+
+import nonogram.Nonogram;
+
+/**
+ * A compact, copyable working grid for solving a Nonogram puzzle.
+ * <p>
+ * The cell states are held row-major in a byte array so that a grid can be copied cheaply
+ * for search. The row and column patterns are shared between copies.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class Grid {
+	/**
+	 * Constructor from the current state of a puzzle
+	 *
+	 * @param puzzle the puzzle to copy the patterns and cell states from
+	 */
+	public Grid(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		this.numRows = puzzle.getNumRows();
+		this.numCols = puzzle.getNumCols();
+		this.rowNums = new int[numRows][];
+		this.colNums = new int[numCols][];
+		for (int row=0; row<numRows; row++)
+			rowNums[row] = puzzle.getRowNums(row);
+		for (int col=0; col<numCols; col++)
+			colNums[col] = puzzle.getColNums(col);
+		this.cells = new byte[numRows*numCols];
+		puzzle.getStates(cells); // same layout, row by row
+		countUnknown();
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param other the grid to copy
+	 */
+	public Grid(Grid other) {
+		if (other == null)
+			throw new IllegalArgumentException("other cannot be null");
+		this.numRows = other.numRows;
+		this.numCols = other.numCols;
+		this.rowNums = other.rowNums;
+		this.colNums = other.colNums;
+		this.cells   = Arrays.copyOf(other.cells, other.cells.length);
+		this.unknown = other.unknown;
+	}
+
+	/**
+	 * Copy of the grid.
+	 *
+	 * @return the copy
+	 */
+	public Grid copy() {
+		return new Grid(this);
+	}
+
+	/**
+	 * Overwrite the cell states of this grid with those of another grid of the same puzzle
+	 *
+	 * @param other the grid to copy the cell states from
+	 */
+	public void copyFrom(Grid other) {
+		if (other == null)
+			throw new IllegalArgumentException("other cannot be null");
+		if (other.cells.length != cells.length)
+			throw new IllegalArgumentException("other grid has different dimensions");
+		System.arraycopy(other.cells, 0, cells, 0, cells.length);
+		unknown = other.unknown;
+	}
+
+	/**
+	 * Is another grid for the same puzzle (i.e. sharing the same patterns)?
+	 *
+	 * @param other the other grid
+	 * @return true if the grids share their patterns, otherwise false
+	 */
+	public boolean isSamePuzzle(Grid other) {
+		return (other != null) && (other.rowNums == rowNums) && (other.colNums == colNums);
+	}
+
+	/**
+	 * Retrieve the number of rows
+	 *
+	 * @return the number of rows
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * Retrieve the number of columns
+	 *
+	 * @return the number of columns
+	 */
+	public int getNumCols() {
+		return numCols;
+	}
+
+	/**
+	 * Retrieve the number of lines (rows then columns)
+	 *
+	 * @return the number of lines
+	 */
+	public int getNumLines() {
+		return numRows + numCols;
+	}
+
+	/**
+	 * Retrieve the pattern of contiguous full cells for a row (not copied, must not be modified)
+	 *
+	 * @param row the desired row
+	 * @return the row pattern
+	 */
+	public int[] getRowNums(int row) {
+		return rowNums[row];
+	}
+
+	/**
+	 * Retrieve the pattern of contiguous full cells for a column (not copied, must not be modified)
+	 *
+	 * @param col the desired column
+	 * @return the column pattern
+	 */
+	public int[] getColNums(int col) {
+		return colNums[col];
+	}
+
+	/**
+	 * Retrieve the state of a cell
+	 *
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @return the cell state
+	 */
+	public int getState(int row, int col) {
+		return cells[row*numCols + col];
+	}
+
+	/**
+	 * Retrieve the state of a cell by its row-major index
+	 *
+	 * @param idx the cell index (row*numCols + col)
+	 * @return the cell state
+	 */
+	public int getState(int idx) {
+		return cells[idx];
+	}
+
+	/**
+	 * Set the state of a cell, keeping the count of unknown cells
+	 *
+	 * @param row the cell row
+	 * @param col the cell column
+	 * @param state the new state
+	 */
+	public void setState(int row, int col, int state) {
+		setState(row*numCols + col, state);
+	}
+
+	/**
+	 * Set the state of a cell by its row-major index, keeping the count of unknown cells
+	 *
+	 * @param idx the cell index (row*numCols + col)
+	 * @param state the new state
+	 */
+	public void setState(int idx, int state) {
+		int old = cells[idx];
+		if (old == state)
+			return;
+		if (old == Nonogram.UNKNOWN)
+			unknown--;
+		else if (state == Nonogram.UNKNOWN)
+			unknown++;
+		cells[idx] = (byte) state;
+	}
+
+	/**
+	 * Retrieve the number of cells still UNKNOWN
+	 *
+	 * @return the number of unknown cells
+	 */
+	public int getUnknownCount() {
+		return unknown;
+	}
+
+	/**
+	 * Are all cells known?
+	 *
+	 * @return true if no cell is UNKNOWN, otherwise false
+	 */
+	public boolean isComplete() {
+		return unknown == 0;
+	}
+
+	/**
+	 * Copy the states of a row into a line buffer
+	 *
+	 * @param row the desired row
+	 * @param line the buffer, numCols long
+	 */
+	void getRow(int row, byte[] line) {
+		System.arraycopy(cells, row*numCols, line, 0, numCols);
+	}
+
+	/**
+	 * Copy the states of a column into a line buffer
+	 *
+	 * @param col the desired column
+	 * @param line the buffer, numRows long
+	 */
+	void getCol(int col, byte[] line) {
+		for (int row=0, idx=col; row<numRows; row++, idx+=numCols)
+			line[row] = cells[idx];
+	}
+
+	/**
+	 * Write the cell states of this grid back into a puzzle, touching only the cells that differ
+	 *
+	 * @param puzzle the puzzle (must have the same dimensions)
+	 * @return the number of cells changed in the puzzle
+	 */
+	public int applyTo(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		if ((puzzle.getNumRows() != numRows) || (puzzle.getNumCols() != numCols))
+			throw new IllegalArgumentException("puzzle has different dimensions");
+		int changed = 0;
+		puzzle.beginUpdate(); // one notification for the whole grid
+		try {
+			for (int row=0; row<numRows; row++) {
+				for (int col=0; col<numCols; col++) {
+					int state = cells[row*numCols + col];
+					if (puzzle.getState(row, col) != state) {
+						puzzle.setState(row, col, state);
+						changed++;
+					}
+				}
+			}
+		} finally {
+			puzzle.endUpdate();
+		}
+		return changed;
+	}
+
+	/**
+	 * String representation of the cell states, one row per line (useful for debugging)
+	 *
+	 * @return the string representation
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int row=0; row<numRows; row++) {
+			for (int col=0; col<numCols; col++)
+				sb.append(cells[row*numCols + col]);
+			sb.append("\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Recount the unknown cells
+	 */
+	private void countUnknown() {
+		unknown = 0;
+		for (byte b : cells)
+			if (b == Nonogram.UNKNOWN)
+				unknown++;
+	}
+
+	private final int     numRows;
+	private final int     numCols;
+	private final int[][] rowNums;  // shared between copies
+	private final int[][] colNums;  // shared between copies
+	private final byte[]  cells;    // row-major cell states
+	private int           unknown;  // number of UNKNOWN cells
+}
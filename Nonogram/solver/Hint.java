@@ -0,0 +1,179 @@
+package nonogram.solver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nonogram.Assign;
+import nonogram.Nonogram;
+
+/**
+ * A hint for the next logical move in a Nonogram puzzle, as found by a HintService.
+ * <p>
+ * A hint holds the cell assignments it proves, and the row or column whose pattern justifies
+ * them. For a PROBE hint the justifying line is the one that runs out of placements when the
+ * probed cell is given the opposite value. A MISTAKE hint has no assignments: its line already
+ * contradicts its pattern.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class Hint {
+	/**
+	 * How a hint was found
+	 */
+	public enum Kind {
+		/** the line alone forces the cells */
+		LINE,
+		/** giving the cell the other value leads, by line logic, to a contradiction */
+		PROBE,
+		/** the line cannot be completed from its current cell states */
+		MISTAKE
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param kind how the hint was found
+	 * @param isRow whether the justifying line is a row (true) or a column (false)
+	 * @param index the row or column number of the justifying line
+	 * @param nums the pattern of the justifying line
+	 * @param assigns the cell assignments the hint proves (empty for a MISTAKE)
+	 * @param probe the assignment that was probed and failed (PROBE hints only, otherwise null)
+	 */
+	public Hint(Kind kind, boolean isRow, int index, int[] nums, List<Assign> assigns, Assign probe) {
+		if (kind == null)
+			throw new IllegalArgumentException("kind cannot be null");
+		if (index < 0)
+			throw new IllegalArgumentException("invalid index (" + index + ")");
+		if (nums == null)
+			throw new IllegalArgumentException("nums cannot be null");
+		if (assigns == null)
+			throw new IllegalArgumentException("assigns cannot be null");
+		if ((kind == Kind.PROBE) != (probe != null))
+			throw new IllegalArgumentException("probe must be given for, and only for, a PROBE hint");
+		this.kind    = kind;
+		this.isRow   = isRow;
+		this.index   = index;
+		this.nums    = nums.clone();
+		this.assigns = Collections.unmodifiableList(assigns);
+		this.probe   = probe;
+	}
+
+	/**
+	 * Retrieve how the hint was found
+	 *
+	 * @return the kind of hint
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Is the justifying line a row?
+	 *
+	 * @return true for a row, false for a column
+	 */
+	public boolean isRow() {
+		return isRow;
+	}
+
+	/**
+	 * Retrieve the row or column number of the justifying line
+	 *
+	 * @return the line number
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Retrieve the pattern of the justifying line
+	 *
+	 * @return the pattern (a copy)
+	 */
+	public int[] getNums() {
+		return nums.clone();
+	}
+
+	/**
+	 * Retrieve the cell assignments the hint proves
+	 *
+	 * @return the assignments (unmodifiable, empty for a MISTAKE)
+	 */
+	public List<Assign> getAssigns() {
+		return assigns;
+	}
+
+	/**
+	 * Retrieve the assignment that was probed and led to a contradiction
+	 *
+	 * @return the probed assignment (or null if this is not a PROBE hint)
+	 */
+	public Assign getProbe() {
+		return probe;
+	}
+
+	/**
+	 * A description of the hint suitable for showing to the player
+	 *
+	 * @return the description
+	 */
+	public String getDescription() {
+		String line = (isRow ? "Row " : "Column ") + index + " " + Arrays.toString(nums);
+		switch (kind) {
+			case MISTAKE:
+				return line + " cannot be completed - check your moves";
+			case PROBE:
+				return "If (" + probe.getRow() + "," + probe.getCol() + ") were " + stateName(probe.getState())
+						+ ", " + line + " could not be completed, so " + cellList();
+			default:
+				return line + ": " + cellList();
+		}
+	}
+
+	/**
+	 * String representation of the hint (useful for debugging)
+	 *
+	 * @return the String representation
+	 */
+	@Override
+	public String toString() {
+		return "Hint(" + kind + "," + (isRow ? "row " : "col ") + index + "," + assigns + ")";
+	}
+
+	/**
+	 * List the assigned cells, grouped by state
+	 */
+	private String cellList() {
+		StringBuilder sb = new StringBuilder();
+		for (int state : new int[] { Nonogram.FULL, Nonogram.EMPTY }) {
+			StringBuilder cells = new StringBuilder();
+			int count = 0;
+			for (Assign a : assigns) {
+				if (a.getState() != state)
+					continue;
+				if (count++ > 0)
+					cells.append(" ");
+				cells.append("(").append(a.getRow()).append(",").append(a.getCol()).append(")");
+			}
+			if (count == 0)
+				continue;
+			if (sb.length() > 0)
+				sb.append("; ");
+			sb.append(cells).append((count == 1) ? " must be " : " must all be ").append(stateName(state));
+		}
+		return sb.toString();
+	}
+
+	private static String stateName(int state) {
+		return (state == Nonogram.FULL) ? "full" : "empty";
+	}
+
+	private final Kind         kind;
+	private final boolean      isRow;
+	private final int          index;
+	private final int[]        nums;
+	private final List<Assign> assigns;
+	private final Assign       probe;
+}
@@ -0,0 +1,197 @@
+package nonogram.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nonogram.Assign;
+import nonogram.BitLine;
+import nonogram.BitLineSolver;
+import nonogram.LineSolver;
+import nonogram.Nonogram;
+
+/**
+ * Finds the next logical move in a puzzle, for the hint commands of the user interfaces.
+ * <p>
+ * The cheap step comes first: every row and column is solved on its own against the current cell
+ * states, and the line that fixes the most cells becomes the hint. Only when no single line fixes
+ * anything does the service escalate to probing: each UNKNOWN cell is given a value and propagated,
+ * and the first value that leads to a contradiction gives a hint for the opposite value. Probing
+ * stops when the time budget runs out, in which case there is no hint.
+ * <p>
+ * A HintService reuses its solvers, so it is not thread-safe; use one per thread.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class HintService {
+	/**
+	 * Constructor with the default time budget
+	 */
+	public HintService() {
+		this(DEFAULT_BUDGET_MS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param budgetMillis the time budget for finding a hint, in milliseconds
+	 */
+	public HintService(long budgetMillis) {
+		setBudget(budgetMillis);
+	}
+
+	/**
+	 * Find the next logical move from the current cell states of a puzzle. The puzzle itself is
+	 * not changed.
+	 *
+	 * @param puzzle the puzzle
+	 * @return the hint, or null if there is none (the puzzle is complete and breaks no clue, or no
+	 *         move was found within the time budget)
+	 */
+	public Hint hint(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		long deadline = System.nanoTime() + budgetMillis*1_000_000L;
+		Grid grid = new Grid(puzzle);
+		Hint hint = lineHint(grid); // finds a mistake even when every cell is filled in
+		if ((hint == null) && !grid.isComplete())
+			hint = probeHint(grid, deadline);
+		return hint;
+	}
+
+	/**
+	 * Set the time budget for finding a hint
+	 *
+	 * @param budgetMillis the budget in milliseconds
+	 */
+	public void setBudget(long budgetMillis) {
+		if (budgetMillis < 1)
+			throw new IllegalArgumentException("budgetMillis must be positive (" + budgetMillis + ")");
+		this.budgetMillis = budgetMillis;
+	}
+
+	/**
+	 * Retrieve the time budget for finding a hint
+	 *
+	 * @return the budget in milliseconds
+	 */
+	public long getBudget() {
+		return budgetMillis;
+	}
+
+	/**
+	 * Solve each line on its own, returning the line that fixes the most cells (or a line that
+	 * contradicts its pattern)
+	 */
+	private Hint lineHint(Grid grid) {
+		int numRows  = grid.getNumRows();
+		int numCols  = grid.getNumCols();
+		int bestLine = -1;
+		int bestGain = 0;
+		for (int id=0; id<numRows+numCols; id++) {
+			boolean isRow = id < numRows;
+			int     index = isRow ? id : id - numRows;
+			int     gain  = solveLine(grid, isRow, index);
+			if (gain == LineSolver.CONTRADICTION)
+				return new Hint(Hint.Kind.MISTAKE, isRow, index, nums(grid, isRow, index), new ArrayList<>(), null);
+			if (gain > bestGain) {
+				bestLine = id;
+				bestGain = gain;
+			}
+		}
+		if (bestLine < 0)
+			return null;
+		boolean isRow = bestLine < numRows;
+		int     index = isRow ? bestLine : bestLine - numRows;
+		solveLine(grid, isRow, index);
+		BitLine      bits    = isRow ? rowBits : colBits;
+		List<Assign> assigns = new ArrayList<>();
+		for (int i=0; i<bits.length(); i++) {
+			int row = isRow ? index : i;
+			int col = isRow ? i : index;
+			if ((grid.getState(row, col) == Nonogram.UNKNOWN) && (bits.get(i) != Nonogram.UNKNOWN))
+				assigns.add(new Assign(row, col, bits.get(i)));
+		}
+		return new Hint(Hint.Kind.LINE, isRow, index, nums(grid, isRow, index), assigns, null);
+	}
+
+	/**
+	 * Solve one line of a grid into rowBits or colBits, without changing the grid
+	 */
+	private int solveLine(Grid grid, boolean isRow, int index) {
+		BitLine bits;
+		if (isRow) {
+			if ((rowBits == null) || (rowBits.length() != grid.getNumCols())) {
+				rowBits = new BitLine(grid.getNumCols());
+				rowLine = new byte[grid.getNumCols()];
+			}
+			grid.getRow(index, rowLine);
+			rowBits.setStates(rowLine);
+			bits = rowBits;
+		} else {
+			if ((colBits == null) || (colBits.length() != grid.getNumRows())) {
+				colBits = new BitLine(grid.getNumRows());
+				colLine = new byte[grid.getNumRows()];
+			}
+			grid.getCol(index, colLine);
+			colBits.setStates(colLine);
+			bits = colBits;
+		}
+		return solver.solve(nums(grid, isRow, index), bits);
+	}
+
+	/**
+	 * Probe the UNKNOWN cells until a value fails or the deadline passes
+	 */
+	private Hint probeHint(Grid grid, long deadline) {
+		int numRows = grid.getNumRows();
+		int numCols = grid.getNumCols();
+		if ((propagator == null) || (probeGrid == null) || !probeGrid.isSamePuzzle(grid)) {
+			propagator = new Propagator(numRows, numCols);
+			probeGrid  = grid.copy();
+		}
+		for (int idx=0; idx<numRows*numCols; idx++) {
+			if (grid.getState(idx) != Nonogram.UNKNOWN)
+				continue;
+			int row = idx / numCols;
+			int col = idx % numCols;
+			for (int value : VALUES) {
+				if (System.nanoTime() - deadline > 0)
+					return null;
+				probeGrid.copyFrom(grid);
+				probeGrid.setState(idx, value);
+				if (propagator.propagate(probeGrid, row, col))
+					continue;
+				int     line  = propagator.getFailedLine();
+				boolean isRow = line < numRows;
+				int     index = isRow ? line : line - numRows;
+				int     other = (value == Nonogram.FULL) ? Nonogram.EMPTY : Nonogram.FULL;
+				List<Assign> assigns = new ArrayList<>();
+				assigns.add(new Assign(row, col, other));
+				return new Hint(Hint.Kind.PROBE, isRow, index, nums(grid, isRow, index), assigns,
+						new Assign(row, col, value));
+			}
+		}
+		return null;
+	}
+
+	private static int[] nums(Grid grid, boolean isRow, int index) {
+		return isRow ? grid.getRowNums(index) : grid.getColNums(index);
+	}
+
+	/**
+	 * The default time budget, in milliseconds
+	 */
+	public static final long DEFAULT_BUDGET_MS = 50;
+
+	private static final int[] VALUES = { Nonogram.FULL, Nonogram.EMPTY };
+
+	private final BitLineSolver solver       = new BitLineSolver();
+	private long                budgetMillis = DEFAULT_BUDGET_MS;
+	private BitLine             rowBits      = null;
+	private BitLine             colBits      = null;
+	private byte[]              rowLine      = null;
+	private byte[]              colLine      = null;
+	private Propagator          propagator   = null;
+	private Grid                probeGrid    = null; // scratch grid for probes
+}
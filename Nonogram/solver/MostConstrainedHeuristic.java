@@ -0,0 +1,57 @@
+package nonogram.solver;
+
+import nonogram.Nonogram;
+
+/**
+ * Branch on the UNKNOWN cell whose row and column have the fewest unknown cells between them,
+ * so that a guess is most likely to let propagation finish those lines. Stateless, so it can be
+ * shared between threads.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class MostConstrainedHeuristic implements BranchHeuristic {
+	/**
+	 * Choose the UNKNOWN cell with the fewest unknown cells in its row and column
+	 *
+	 * @param grid the grid
+	 * @return the row-major index of the chosen cell
+	 */
+	@Override
+	public int selectCell(Grid grid) {
+		int numRows = grid.getNumRows();
+		int numCols = grid.getNumCols();
+		int[] rowUnknown = new int[numRows];
+		int[] colUnknown = new int[numCols];
+		for (int row=0, idx=0; row<numRows; row++) {
+			int n = 0;
+			for (int col=0; col<numCols; col++, idx++) {
+				if (grid.getState(idx) == Nonogram.UNKNOWN) {
+					n++;
+					colUnknown[col]++;
+				}
+			}
+			rowUnknown[row] = n;
+		}
+		int best      = -1;
+		int bestScore = Integer.MAX_VALUE;
+		for (int row=0, idx=0; row<numRows; row++) {
+			if (rowUnknown[row] == 0) {
+				idx += numCols;
+				continue;
+			}
+			for (int col=0; col<numCols; col++, idx++) {
+				if (grid.getState(idx) != Nonogram.UNKNOWN)
+					continue;
+				int score = rowUnknown[row] + colUnknown[col];
+				if (score < bestScore) {
+					bestScore = score;
+					best      = idx;
+				}
+			}
+		}
+		if (best < 0)
+			throw new IllegalArgumentException("grid has no unknown cells");
+		return best;
+	}
+}
@@ -0,0 +1,299 @@
+package nonogram.solver;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import nonogram.LineCache;
+import nonogram.Nonogram;
+
+/**
+ * Fork/join parallel search with propagation, splitting the search tree across cores.
+ * <p>
+ * Each branch point becomes a task that owns its own grid copy, so workers never share cell
+ * states. A branch is forked (and so can be stolen by an idle worker) while the pool has few
+ * queued tasks, and explored in the current thread otherwise. Subtrees deeper than the split
+ * limit are finished by a sequential BacktrackingSearch. The first solution found raises a flag
+ * that makes every other task give up, as does raising the cancel flag (see setCancelFlag()).
+ * <p>
+ * A running task borrows a Propagator and BacktrackingSearch of its own from a free list kept by
+ * the ParallelSearch, and returns them when it finishes, so the heuristic is the only object
+ * shared between threads and must be thread-safe. Nothing is left behind on the pool's threads.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class ParallelSearch {
+	/**
+	 * Constructor using the common fork/join pool
+	 *
+	 * @param heuristic the heuristic that chooses the cell to branch on
+	 */
+	public ParallelSearch(BranchHeuristic heuristic) {
+		this(heuristic, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param heuristic the heuristic that chooses the cell to branch on
+	 * @param pool the pool to run the search tasks in
+	 */
+	public ParallelSearch(BranchHeuristic heuristic, ForkJoinPool pool) {
+		if (heuristic == null)
+			throw new IllegalArgumentException("heuristic cannot be null");
+		if (pool == null)
+			throw new IllegalArgumentException("pool cannot be null");
+		this.heuristic = heuristic;
+		this.pool      = pool;
+	}
+
+	/**
+	 * Search for a solution reachable from a grid. The grid itself is not changed.
+	 *
+	 * @param grid the starting grid
+	 * @return a solved copy of the grid, or null if there is no solution
+	 */
+	public Grid search(Grid grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid cannot be null");
+		solution.set(null);
+		stop.set(false);
+		cancelled = false;
+		nodes.reset();
+		tasks.reset();
+		maxDepth.set(0);
+		if ((grid.getNumRows() != numRows) || (grid.getNumCols() != numCols)) {
+			workers.clear(); // sized for another puzzle
+			numRows = grid.getNumRows();
+			numCols = grid.getNumCols();
+		}
+
+		Grid   root   = grid.copy();
+		Worker worker = borrow();
+		try {
+			if (!worker.propagator.propagate(root))
+				return null;
+		} finally {
+			workers.add(worker);
+		}
+		if (root.isComplete())
+			return root;
+		pool.invoke(new SearchTask(root, 0));
+		Grid result = solution.get();
+		cancelled = (result == null) && (cancel != null) && cancel.get();
+		return result;
+	}
+
+	/**
+	 * Set a flag that, once raised by another thread, makes the search give up
+	 *
+	 * @param cancel the cancel flag (or null for none)
+	 */
+	public void setCancelFlag(AtomicBoolean cancel) {
+		this.cancel = cancel;
+		workers.clear();
+	}
+
+	/**
+	 * Was the last search given up because the cancel flag was raised?
+	 *
+	 * @return true if the last search was cancelled, otherwise false
+	 */
+	public boolean wasCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Set the depth beyond which subtrees are searched sequentially, without further splitting
+	 *
+	 * @param splitDepth the split depth
+	 */
+	public void setSplitDepth(int splitDepth) {
+		if (splitDepth < 1)
+			throw new IllegalArgumentException("splitDepth must be positive (" + splitDepth + ")");
+		this.splitDepth = splitDepth;
+	}
+
+	/**
+	 * Set a cache of line results shared by the propagators of all workers
+	 *
+	 * @param cache the cache (or null for none)
+	 */
+	public void setCache(LineCache cache) {
+		this.cache = cache;
+		workers.clear();
+	}
+
+	/**
+	 * Retrieve the number of search nodes (guesses) made by all workers
+	 *
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return nodes.sum();
+	}
+
+	/**
+	 * Retrieve the number of tasks forked
+	 *
+	 * @return the number of tasks
+	 */
+	public long getTasks() {
+		return tasks.sum();
+	}
+
+	/**
+	 * Retrieve the deepest level of guesses reached by any worker
+	 *
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	/**
+	 * Retrieve the pool the search runs in
+	 *
+	 * @return the pool
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Take a worker from the free list, or make one
+	 */
+	private Worker borrow() {
+		Worker worker = workers.poll();
+		return (worker != null) ? worker : new Worker();
+	}
+
+	/**
+	 * Should the tasks give up? Raises the stop flag if the cancel flag has been raised, so that
+	 * the subtree searches see it too.
+	 */
+	private boolean stopped() {
+		if (stop.get())
+			return true;
+		if ((cancel != null) && cancel.get()) {
+			stop.set(true);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Record a solution, raising the flag that stops the other tasks
+	 */
+	private void offer(Grid grid) {
+		if (solution.compareAndSet(null, grid))
+			stop.set(true);
+	}
+
+	/**
+	 * The per-task state: a propagator, and a search for the subtrees past the split depth
+	 */
+	private class Worker {
+		Worker() {
+			propagator = new Propagator(numRows, numCols);
+			propagator.setCache(cache);
+			search     = new BacktrackingSearch(propagator, heuristic);
+			search.setCancelFlag(cancel);
+			search.setStopFlag(stop);
+		}
+
+		private final Propagator         propagator;
+		private final BacktrackingSearch search;
+	}
+
+	/**
+	 * A search task: explore the subtree below a propagated grid that it owns
+	 */
+	@SuppressWarnings("serial")
+	private class SearchTask extends RecursiveAction {
+		SearchTask(Grid grid, int depth) {
+			this.grid  = grid;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			Worker worker = borrow();
+			try {
+				explore(worker, grid, depth);
+			} finally {
+				workers.add(worker);
+			}
+		}
+
+		/**
+		 * Branch on a cell of a grid, forking or exploring each consistent child
+		 */
+		private void explore(Worker worker, Grid grid, int depth) {
+			if (stopped())
+				return;
+			if (depth >= splitDepth) {
+				BacktrackingSearch search = worker.search;
+				long before = search.getNodes();
+				Grid result = search.search(grid);
+				nodes.add(search.getNodes() - before);
+				maxDepth.accumulateAndGet(depth + search.getMaxDepth(), Math::max);
+				if (result != null)
+					offer(result);
+				return;
+			}
+			maxDepth.accumulateAndGet(depth, Math::max);
+			int idx     = heuristic.selectCell(grid);
+			int numCols = grid.getNumCols();
+			SearchTask forked = null;
+			for (int value : VALUES) {
+				if (stopped())
+					break;
+				Grid child = (value == Nonogram.EMPTY) ? grid : grid.copy(); // EMPTY is tried last, so can reuse grid
+				child.setState(idx, value);
+				nodes.increment();
+				if (!worker.propagator.propagate(child, idx / numCols, idx % numCols))
+					continue;
+				if (child.isComplete()) {
+					offer(child);
+					break;
+				}
+				if ((forked == null) && (getSurplusQueuedTaskCount() < SURPLUS)) {
+					forked = new SearchTask(child, depth + 1);
+					forked.fork();
+					tasks.increment();
+				} else {
+					explore(worker, child, depth + 1);
+				}
+			}
+			if (forked != null)
+				forked.join();
+		}
+
+		private final Grid grid;
+		private final int  depth;
+	}
+
+	private static final int[] VALUES  = { Nonogram.FULL, Nonogram.EMPTY };
+	private static final int   SURPLUS = 3; // fork only while this thread has fewer spare queued tasks
+
+	private final BranchHeuristic               heuristic;
+	private final ForkJoinPool                  pool;
+	private final AtomicReference<Grid>         solution   = new AtomicReference<>();
+	private final AtomicBoolean                 stop       = new AtomicBoolean(); // a solution was found, or the search cancelled
+	private final LongAdder                     nodes      = new LongAdder();
+	private final LongAdder                     tasks      = new LongAdder();
+	private final AtomicInteger                 maxDepth   = new AtomicInteger();
+	private final ConcurrentLinkedQueue<Worker> workers    = new ConcurrentLinkedQueue<>(); // those not in use by a task
+	private int                                 numRows    = 0;    // the size the workers were made for
+	private int                                 numCols    = 0;
+	private int                                 splitDepth = 64;
+	private LineCache                           cache      = null;
+	private AtomicBoolean                       cancel     = null;
+	private boolean                             cancelled  = false;
+}
@@ -0,0 +1,259 @@
+package nonogram.solver;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import nonogram.LineCache;
+import nonogram.Nonogram;
+
+/**
+ * Failed-literal probing, a stage between line logic and search.
+ * <p>
+ * In each round every UNKNOWN cell is probed: it is set FULL on a copy of the grid and propagated,
+ * then set EMPTY on another copy and propagated. If one value leads to a contradiction the cell
+ * must take the other value, along with every cell that value's propagation fixed. If both values
+ * propagate, any cell that ends up the same in both copies is fixed. If both values fail, the grid
+ * has no solution. The deductions of a round are applied together and propagated, and rounds
+ * continue until a round fixes nothing.
+ * <p>
+ * The probes of a round all start from the same grid, so they are independent and are split
+ * across the cores of a fork/join pool. Each worker thread has its own Propagator and probe grids.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class Prober {
+	/**
+	 * Constructor using the common fork/join pool
+	 */
+	public Prober() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param pool the pool to run the probes in
+	 */
+	public Prober(ForkJoinPool pool) {
+		if (pool == null)
+			throw new IllegalArgumentException("pool cannot be null");
+		this.pool = pool;
+	}
+
+	/**
+	 * Propagate a grid, then probe it until no more cells can be fixed. The grid is updated in place,
+	 * and may be partly updated if a contradiction is found.
+	 *
+	 * @param grid the grid to probe
+	 * @return false if the grid was found to have no solution, otherwise true
+	 */
+	public boolean probe(Grid grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid cannot be null");
+		if ((template == null) || !template.isSamePuzzle(grid) || (cacheUsed != cache)) {
+			Grid      copy   = grid.copy();
+			LineCache shared = cache;
+			template    = copy;
+			cacheUsed   = shared;
+			numCols     = grid.getNumCols();
+			propagators = ThreadLocal.withInitial(() -> {
+				Propagator propagator = new Propagator(copy.getNumRows(), copy.getNumCols());
+				propagator.setCache(shared);
+				return propagator;
+			});
+			scratch     = ThreadLocal.withInitial(() -> new Grid[] { copy.copy(), copy.copy() });
+		}
+		rounds        = 0;
+		fixedPerRound = new int[0];
+		probes.reset();
+
+		Propagator propagator = propagators.get();
+		if (!propagator.propagate(grid))
+			return false;
+		int[] unknown = new int[grid.getNumRows()*numCols];
+		while (!grid.isComplete()) {
+			int count = 0;
+			for (int idx=0; idx<unknown.length; idx++)
+				if (grid.getState(idx) == Nonogram.UNKNOWN)
+					unknown[count++] = idx;
+
+			contradiction.set(false);
+			Grid  base    = grid.copy(); // shared, read-only, by the probe tasks
+			int[] deduced = pool.invoke(new ProbeTask(base, unknown, 0, count));
+			if (contradiction.get())
+				return false;
+
+			int before = grid.getUnknownCount();
+			for (int code : deduced) {
+				int idx   = code >>> 2;
+				int state = code & 3;
+				int old   = grid.getState(idx);
+				if (old == Nonogram.UNKNOWN)
+					grid.setState(idx, state);
+				else if (old != state)
+					return false; // two sound deductions disagree
+			}
+			if ((grid.getUnknownCount() != before) && !propagator.propagate(grid))
+				return false;
+			int fixed = before - grid.getUnknownCount();
+			rounds++;
+			fixedPerRound = Arrays.copyOf(fixedPerRound, rounds);
+			fixedPerRound[rounds - 1] = fixed;
+			if (fixed == 0)
+				break;
+		}
+		return true;
+	}
+
+	/**
+	 * Set a cache of line results shared by the propagators of all workers
+	 *
+	 * @param cache the cache (or null for none)
+	 */
+	public void setCache(LineCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Retrieve the number of probing rounds run by the last call to probe(), including the final
+	 * round that fixed nothing
+	 *
+	 * @return the number of rounds
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Retrieve the number of cells fixed by each round of the last call to probe() (including the
+	 * cells that propagation fixed after the round's deductions)
+	 *
+	 * @return the cells fixed per round (a copy)
+	 */
+	public int[] getFixedPerRound() {
+		return fixedPerRound.clone();
+	}
+
+	/**
+	 * Retrieve the number of cells fixed by the last call to probe(), over all rounds
+	 *
+	 * @return the number of cells fixed
+	 */
+	public int getCellsFixed() {
+		int total = 0;
+		for (int fixed : fixedPerRound)
+			total += fixed;
+		return total;
+	}
+
+	/**
+	 * Retrieve the number of cells probed (each with both values) by the last call to probe()
+	 *
+	 * @return the number of probes
+	 */
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	/**
+	 * Retrieve the pool the probes run in
+	 *
+	 * @return the pool
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * A probe task: probe a range of the UNKNOWN cells, returning the deductions as idx*4+state codes
+	 */
+	@SuppressWarnings("serial")
+	private class ProbeTask extends RecursiveTask<int[]> {
+		ProbeTask(Grid base, int[] cells, int from, int to) {
+			this.base  = base;
+			this.cells = cells;
+			this.from  = from;
+			this.to    = to;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (to - from > LEAF_SIZE) {
+				int mid = (from + to) >>> 1;
+				ProbeTask left = new ProbeTask(base, cells, from, mid);
+				left.fork();
+				int[] right = new ProbeTask(base, cells, mid, to).compute();
+				int[] both  = left.join();
+				int[] all   = Arrays.copyOf(both, both.length + right.length);
+				System.arraycopy(right, 0, all, both.length, right.length);
+				return all;
+			}
+			Propagator propagator = propagators.get();
+			Grid[]     grids      = scratch.get();
+			Grid       full       = grids[0];
+			Grid       empty      = grids[1];
+			int[]      out        = new int[16];
+			int        n          = 0;
+			int        numCells   = base.getNumRows()*numCols;
+			for (int i=from; i<to; i++) {
+				if (contradiction.get())
+					break;
+				int idx = cells[i];
+				int row = idx / numCols;
+				int col = idx % numCols;
+				full.copyFrom(base);
+				full.setState(idx, Nonogram.FULL);
+				boolean fullOK = propagator.propagate(full, row, col);
+				empty.copyFrom(base);
+				empty.setState(idx, Nonogram.EMPTY);
+				boolean emptyOK = propagator.propagate(empty, row, col);
+				probes.increment();
+				if (!fullOK && !emptyOK) {
+					contradiction.set(true);
+					break;
+				}
+				// a failed value leaves everything the other value fixed; otherwise keep what both agree on
+				for (int c=0; c<numCells; c++) {
+					if (base.getState(c) != Nonogram.UNKNOWN)
+						continue;
+					int state;
+					if (!fullOK)
+						state = empty.getState(c);
+					else if (!emptyOK)
+						state = full.getState(c);
+					else
+						state = (full.getState(c) == empty.getState(c)) ? full.getState(c) : Nonogram.UNKNOWN;
+					if (state == Nonogram.UNKNOWN)
+						continue;
+					if (n == out.length)
+						out = Arrays.copyOf(out, 2*out.length);
+					out[n++] = (c << 2) | state;
+				}
+			}
+			return Arrays.copyOf(out, n);
+		}
+
+		private final Grid  base;
+		private final int[] cells;
+		private final int   from;
+		private final int   to;
+	}
+
+	private static final int LEAF_SIZE = 8; // cells probed per task before splitting stops
+
+	private final ForkJoinPool      pool;
+	private final AtomicBoolean     contradiction = new AtomicBoolean();
+	private final LongAdder         probes        = new LongAdder();
+	private ThreadLocal<Propagator> propagators   = null; // one per worker thread
+	private ThreadLocal<Grid[]>     scratch       = null; // FULL and EMPTY probe grids, one pair per worker thread
+	private Grid                    template      = null; // the puzzle the thread-local state was made for
+	private LineCache               cache         = null;
+	private LineCache               cacheUsed     = null; // the cache the thread-local propagators were made with
+	private int                     numCols       = 0;
+	private int                     rounds        = 0;
+	private int[]                   fixedPerRound = new int[0];
+}
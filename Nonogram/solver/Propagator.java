@@ -0,0 +1,297 @@
+package nonogram.solver;
+
+import nonogram.BitLine;
+import nonogram.BitLineSolver;
+import nonogram.LineCache;
+import nonogram.LineSolver;
+import nonogram.OverlapLineSolver;
+
+/**
+ * Constraint propagation over the rows and columns of a Grid.
+ * <p>
+ * Lines are taken from a work queue and solved with a BitLineSolver. Whenever a line fixes cells,
+ * the crossing lines of just those cells are queued, so only lines whose cells have actually
+ * changed are re-examined. Propagation stops when the queue is empty (a fixpoint) or when a
+ * line has no valid placement (a contradiction). Line results can be shared with other
+ * propagators through a LineCache. For rating puzzles, the line solver can be restricted to the
+ * simple overlap rules of an OverlapLineSolver with setSimple().
+ * <p>
+ * A Propagator reuses its buffers, so it is not thread-safe; use one per thread.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class Propagator {
+	/**
+	 * Constructor
+	 *
+	 * @param numRows the number of rows of the grids to be propagated
+	 * @param numCols the number of columns of the grids to be propagated
+	 */
+	public Propagator(int numRows, int numCols) {
+		if (numRows < 1)
+			throw new IllegalArgumentException("numRows must be positive (" + numRows + ")");
+		if (numCols < 1)
+			throw new IllegalArgumentException("numCols must be positive (" + numCols + ")");
+		this.numRows = numRows;
+		this.numCols = numCols;
+		this.queue   = new int[numRows + numCols];
+		this.queued  = new boolean[numRows + numCols];
+		this.rowLine = new byte[numCols];
+		this.colLine = new byte[numRows];
+		this.rowBits = new BitLine(numCols);
+		this.colBits = new BitLine(numRows);
+	}
+
+	/**
+	 * Propagate every row and column of a grid to a fixpoint
+	 *
+	 * @param grid the grid, updated in place
+	 * @return false if a contradiction was found, otherwise true
+	 */
+	public boolean propagate(Grid grid) {
+		checkGrid(grid);
+		for (int id=0; id<numRows+numCols; id++)
+			enqueue(id);
+		return run(grid);
+	}
+
+	/**
+	 * Propagate the consequences of a change to a single cell (e.g. a search guess) to a fixpoint
+	 *
+	 * @param grid the grid, updated in place
+	 * @param row the row of the changed cell
+	 * @param col the column of the changed cell
+	 * @return false if a contradiction was found, otherwise true
+	 */
+	public boolean propagate(Grid grid, int row, int col) {
+		checkGrid(grid);
+		enqueue(row);
+		enqueue(numRows + col);
+		return run(grid);
+	}
+
+	/**
+	 * Set a cache of line results to consult before solving a line
+	 *
+	 * @param cache the cache (or null for none)
+	 */
+	public void setCache(LineCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Restrict line solving to the overlap rules (see OverlapLineSolver), or restore the full line
+	 * solver. The cache is not used for simple solving.
+	 *
+	 * @param simple true for the overlap rules only, false for the full line solver
+	 */
+	public void setSimple(boolean simple) {
+		if (simple && (overlap == null)) {
+			overlap = new OverlapLineSolver();
+			rowWork = new byte[numCols];
+			colWork = new byte[numRows];
+		}
+		this.simple = simple;
+	}
+
+	/**
+	 * Is line solving restricted to the overlap rules?
+	 *
+	 * @return true if only the overlap rules are used, otherwise false
+	 */
+	public boolean isSimple() {
+		return simple;
+	}
+
+	/**
+	 * Retrieve the cache of line results
+	 *
+	 * @return the cache (or null if there is none)
+	 */
+	public LineCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Retrieve the total number of lines solved by this propagator
+	 *
+	 * @return the number of line solves
+	 */
+	public long getLineSolves() {
+		return lineSolves;
+	}
+
+	/**
+	 * Retrieve the total number of propagation rounds (each round solves the lines queued by the previous one)
+	 *
+	 * @return the number of rounds
+	 */
+	public long getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Retrieve the total number of cells fixed by this propagator
+	 *
+	 * @return the number of cells fixed
+	 */
+	public long getCellsFixed() {
+		return cellsFixed;
+	}
+
+	/**
+	 * Retrieve the line that had no valid placement in the last propagation to fail
+	 *
+	 * @return the line id (rows, then numRows+col for columns), or -1 if no propagation has failed
+	 */
+	public int getFailedLine() {
+		return failedLine;
+	}
+
+	/**
+	 * Reset the counters
+	 */
+	public void resetCounters() {
+		lineSolves = 0;
+		rounds     = 0;
+		cellsFixed = 0;
+	}
+
+	/**
+	 * Work through the queue until it is empty or a contradiction is found
+	 */
+	private boolean run(Grid grid) {
+		while (count > 0) {
+			rounds++;
+			for (int n=count; n>0; n--) {
+				int id = dequeue();
+				lineSolves++;
+				if (!solveLine(grid, id)) {
+					failedLine = id;
+					clearQueue();
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Solve one line and queue the crossing lines of any cells it fixes
+	 */
+	private boolean solveLine(Grid grid, int id) {
+		if (id < numRows) {
+			int row = id;
+			grid.getRow(row, rowLine);
+			rowBits.setStates(rowLine);
+			int changed = solve(grid.getRowNums(row), rowBits, rowWork);
+			if (changed == LineSolver.CONTRADICTION)
+				return false;
+			if (changed > 0) {
+				for (int col=0; col<numCols; col++) {
+					int state = rowBits.get(col);
+					if (state != rowLine[col]) {
+						grid.setState(row, col, state);
+						enqueue(numRows + col);
+					}
+				}
+				cellsFixed += changed;
+			}
+		} else {
+			int col = id - numRows;
+			grid.getCol(col, colLine);
+			colBits.setStates(colLine);
+			int changed = solve(grid.getColNums(col), colBits, colWork);
+			if (changed == LineSolver.CONTRADICTION)
+				return false;
+			if (changed > 0) {
+				for (int row=0; row<numRows; row++) {
+					int state = colBits.get(row);
+					if (state != colLine[row]) {
+						grid.setState(row, col, state);
+						enqueue(row);
+					}
+				}
+				cellsFixed += changed;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Solve a line, with the overlap rules if simple, otherwise through the cache if there is one
+	 */
+	private int solve(int[] nums, BitLine bits, byte[] work) {
+		if (simple) {
+			bits.getStates(work);
+			int changed = overlap.solve(nums, work);
+			if (changed > 0)
+				bits.setStates(work);
+			return changed;
+		}
+		return (cache == null) ? solver.solve(nums, bits) : cache.solve(solver, nums, bits);
+	}
+
+	/**
+	 * Add a line to the back of the queue, unless it is already waiting
+	 */
+	private void enqueue(int id) {
+		if (queued[id])
+			return;
+		queued[id] = true;
+		queue[(head + count) % queue.length] = id;
+		count++;
+	}
+
+	/**
+	 * Take a line from the front of the queue
+	 */
+	private int dequeue() {
+		int id = queue[head];
+		head = (head + 1) % queue.length;
+		count--;
+		queued[id] = false;
+		return id;
+	}
+
+	/**
+	 * Empty the queue
+	 */
+	private void clearQueue() {
+		while (count > 0)
+			dequeue();
+		head = 0;
+	}
+
+	/**
+	 * Check a grid matches the dimensions of this propagator
+	 */
+	private void checkGrid(Grid grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid cannot be null");
+		if ((grid.getNumRows() != numRows) || (grid.getNumCols() != numCols))
+			throw new IllegalArgumentException("grid must be " + numRows + "x" + numCols);
+	}
+
+	private final int           numRows;
+	private final int           numCols;
+	private final BitLineSolver solver = new BitLineSolver();
+	private final int[]         queue;   // ring buffer of line ids (rows, then columns)
+	private final boolean[]     queued;  // is the line already waiting in the queue?
+	private final byte[]        rowLine; // a row before solving
+	private final byte[]        colLine; // a column before solving
+	private final BitLine       rowBits;
+	private final BitLine       colBits;
+	private int                 head       = 0;
+	private int                 count      = 0;
+	private long                lineSolves = 0;
+	private long                rounds     = 0;
+	private long                cellsFixed = 0;
+	private int                 failedLine = -1;
+	private LineCache           cache      = null;
+	private boolean             simple     = false;
+	private OverlapLineSolver   overlap    = null; // created by setSimple()
+	private byte[]              rowWork    = null; // a row for the overlap rules
+	private byte[]              colWork    = null; // a column for the overlap rules
+}
@@ -0,0 +1,497 @@
+package nonogram.solver;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import nonogram.Nonogram;
+import nonogram.NonogramException;
+
+/**
+ * Generates puzzles from images, keeping only those with a unique solution, and writes them as a
+ * pack of .non puzzles (readable with NonogramReader).
+ * <p>
+ * Usage: java nonogram.solver.PuzzleGenerator [options] (directory | image)...
+ * <pre>
+ *   -threads N      check N images at a time (default: the number of cores)
+ *   -width N        scale each image to N columns, keeping its aspect ratio (default: no scaling)
+ *   -threshold T    a cell is full if its grey level is below T, from 0 (black) to 1 (white) (default 0.5)
+ *   -out FILE       write the pack to FILE rather than standard output
+ * </pre>
+ * PBM and PGM files (plain or raw) are read directly; PNG and any other format ImageIO knows are
+ * read through ImageIO. Directories are searched recursively for images, which are written in
+ * sorted order, each puzzle with its file name as the title and its image as the goal. An image is
+ * rejected if it has an empty row or column (the .non format cannot express one) or is smaller
+ * than Nonogram.MIN_SIZE. The uniqueness checks, which take nearly all the time, run on a thread
+ * pool; a summary is written to standard error.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class PuzzleGenerator {
+	/**
+	 * Constructor
+	 *
+	 * @param files the images, in output order
+	 */
+	public PuzzleGenerator(List<Path> files) {
+		if (files == null)
+			throw new IllegalArgumentException("files cannot be null");
+		this.files = new ArrayList<>(files);
+	}
+
+	/**
+	 * The entry point of the generator.
+	 *
+	 * @param args the options and paths (see the class description)
+	 */
+	public static void main(String[] args) {
+		List<Path> paths     = new ArrayList<>();
+		int        threads   = Runtime.getRuntime().availableProcessors();
+		int        width     = 0;
+		double     threshold = DEFAULT_THRESHOLD;
+		String     out       = null;
+		try {
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-threads"))
+					threads = Integer.parseInt(CommandLine.value(args, ++i));
+				else if (arg.equals("-width"))
+					width = Integer.parseInt(CommandLine.value(args, ++i));
+				else if (arg.equals("-threshold"))
+					threshold = Double.parseDouble(CommandLine.value(args, ++i));
+				else if (arg.equals("-out"))
+					out = CommandLine.value(args, ++i);
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("unknown option (" + arg + ")");
+				else
+					paths.add(Paths.get(arg));
+			}
+			if (paths.isEmpty())
+				throw new IllegalArgumentException("no directories or images given");
+
+			PuzzleGenerator generator = new PuzzleGenerator(collect(paths));
+			generator.setThreads(threads);
+			generator.setWidth(width);
+			generator.setThreshold(threshold);
+			if (out == null) {
+				generator.run(System.out);
+			} else {
+				try (PrintStream ps = new PrintStream(new File(out), "UTF-8")) {
+					generator.run(ps);
+				}
+			}
+			System.err.println("PuzzleGenerator: " + generator.getKept() + " unique, " + generator.getAmbiguous()
+					+ " ambiguous, " + generator.getRejected() + " rejected");
+		} catch (IllegalArgumentException | IOException e) {
+			System.err.println("PuzzleGenerator: " + e.getMessage());
+			System.err.println("usage: java nonogram.solver.PuzzleGenerator [-threads N] [-width N] [-threshold T]"
+					+ " [-out FILE] (directory | image)...");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Expand directories into the images beneath them, in sorted order
+	 *
+	 * @param paths directories and files
+	 * @return the files
+	 * @throws IOException if a directory cannot be read
+	 */
+	public static List<Path> collect(List<Path> paths) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (Path path : paths) {
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> walk = Files.walk(path)) {
+					files.addAll(walk.filter(p -> Files.isRegularFile(p) && isImage(p))
+							.sorted().collect(Collectors.toList()));
+				}
+			} else {
+				files.add(path);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Check every image, writing the unique puzzles to a pack in input order
+	 *
+	 * @param out where to write the pack
+	 */
+	public void run(PrintStream out) {
+		if (out == null)
+			throw new IllegalArgumentException("out cannot be null");
+		kept      = 0;
+		ambiguous = 0;
+		rejected  = 0;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (Path file : files)
+				results.add(pool.submit(() -> generate(file)));
+			for (int i=0; i<results.size(); i++) {
+				String text;
+				try {
+					text = results.get(i).get();
+				} catch (ExecutionException e) {
+					System.err.println(files.get(i) + ": " + e.getCause().getMessage());
+					rejected++;
+					continue;
+				}
+				if (text == null) {
+					ambiguous++;
+				} else {
+					out.print(text);
+					out.flush();
+					kept++;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Read an image as grey levels from 0 (black) to 1 (white): PBM and PGM directly, anything else
+	 * through ImageIO
+	 *
+	 * @param file the image
+	 * @return the grey levels, indexed [row][col]
+	 * @throws IOException if the file cannot be read or is not an image
+	 */
+	public static double[][] readImage(Path file) throws IOException {
+		String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+		if (name.endsWith(".pbm") || name.endsWith(".pgm")) {
+			try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+				return readNetpbm(in);
+			}
+		}
+		BufferedImage image = ImageIO.read(file.toFile());
+		if (image == null)
+			throw new IOException("not a supported image");
+		int        height = image.getHeight();
+		int        width  = image.getWidth();
+		double[][] grey   = new double[height][width];
+		for (int row=0; row<height; row++) {
+			for (int col=0; col<width; col++) {
+				int argb  = image.getRGB(col, row);
+				int alpha = argb >>> 24;
+				int r     = (argb >> 16) & 0xFF;
+				int g     = (argb >> 8) & 0xFF;
+				int b     = argb & 0xFF;
+				double luma = (0.299*r + 0.587*g + 0.114*b) / 255;
+				grey[row][col] = 1 - (alpha / 255.0)*(1 - luma); // transparent is white
+			}
+		}
+		return grey;
+	}
+
+	/**
+	 * Threshold grey levels to cells, first scaling to a width by averaging the pixels under each cell
+	 *
+	 * @param grey the grey levels, indexed [row][col]
+	 * @param width the number of columns (0 for one per pixel)
+	 * @param threshold a cell is full if its grey level is below this
+	 * @return the cells, true for full, indexed [row][col]
+	 */
+	public static boolean[][] threshold(double[][] grey, int width, double threshold) {
+		if ((grey == null) || (grey.length == 0) || (grey[0].length == 0))
+			throw new IllegalArgumentException("grey cannot be empty");
+		if (width < 0)
+			throw new IllegalArgumentException("width cannot be negative (" + width + ")");
+		int imageRows = grey.length;
+		int imageCols = grey[0].length;
+		int numCols   = (width == 0) ? imageCols : width;
+		int numRows   = (width == 0) ? imageRows : Math.max(1, (int) Math.round((double) imageRows*numCols / imageCols));
+		boolean[][] cells = new boolean[numRows][numCols];
+		for (int row=0; row<numRows; row++) {
+			int r0 = row*imageRows / numRows;
+			int r1 = Math.max(r0 + 1, (row + 1)*imageRows / numRows);
+			for (int col=0; col<numCols; col++) {
+				int c0 = col*imageCols / numCols;
+				int c1 = Math.max(c0 + 1, (col + 1)*imageCols / numCols);
+				double sum = 0;
+				for (int r=r0; r<r1; r++)
+					for (int c=c0; c<c1; c++)
+						sum += grey[r][c];
+				cells[row][col] = sum / ((r1 - r0)*(c1 - c0)) < threshold;
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Build the puzzle whose solution is the given cells
+	 *
+	 * @param cells the cells, true for full, indexed [row][col]
+	 * @return the puzzle
+	 * @throws NonogramException if a row or column is empty or the grid is too small
+	 */
+	public static Nonogram toPuzzle(boolean[][] cells) {
+		if ((cells == null) || (cells.length == 0))
+			throw new IllegalArgumentException("cells cannot be empty");
+		int numRows = cells.length;
+		int numCols = cells[0].length;
+		if ((numRows < Nonogram.MIN_SIZE) || (numCols < Nonogram.MIN_SIZE))
+			throw new NonogramException(numRows + "x" + numCols + " is smaller than " + Nonogram.MIN_SIZE + "x" + Nonogram.MIN_SIZE);
+		int[][] rowNums = new int[numRows][];
+		int[][] colNums = new int[numCols][];
+		boolean[] line  = new boolean[Math.max(numRows, numCols)];
+		for (int row=0; row<numRows; row++) {
+			rowNums[row] = runs(cells[row], numCols);
+			if (rowNums[row].length == 0)
+				throw new NonogramException("row " + row + " is empty");
+		}
+		for (int col=0; col<numCols; col++) {
+			for (int row=0; row<numRows; row++)
+				line[row] = cells[row][col];
+			colNums[col] = runs(line, numRows);
+			if (colNums[col].length == 0)
+				throw new NonogramException("column " + col + " is empty");
+		}
+		return new Nonogram(rowNums, colNums);
+	}
+
+	/**
+	 * Set the number of threads
+	 *
+	 * @param threads the number of images checked at a time
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be positive (" + threads + ")");
+		this.threads = threads;
+	}
+
+	/**
+	 * Set the width images are scaled to
+	 *
+	 * @param width the number of columns (0 for one per pixel)
+	 */
+	public void setWidth(int width) {
+		if ((width != 0) && (width < Nonogram.MIN_SIZE))
+			throw new IllegalArgumentException("width must be 0 or at least " + Nonogram.MIN_SIZE + " (" + width + ")");
+		this.width = width;
+	}
+
+	/**
+	 * Set the grey level below which a cell is full
+	 *
+	 * @param threshold the threshold, from 0 (black) to 1 (white)
+	 */
+	public void setThreshold(double threshold) {
+		if (!(threshold > 0) || !(threshold <= 1))
+			throw new IllegalArgumentException("threshold must be in (0,1] (" + threshold + ")");
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Retrieve the number of unique puzzles written by the last run
+	 *
+	 * @return the number kept
+	 */
+	public int getKept() {
+		return kept;
+	}
+
+	/**
+	 * Retrieve the number of puzzles with more than one solution in the last run
+	 *
+	 * @return the number dropped as ambiguous
+	 */
+	public int getAmbiguous() {
+		return ambiguous;
+	}
+
+	/**
+	 * Retrieve the number of images that could not be read or made into a puzzle in the last run
+	 *
+	 * @return the number rejected
+	 */
+	public int getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * Make one image into a puzzle, returning its .non text, or null if it is not unique
+	 */
+	private String generate(Path file) throws IOException {
+		boolean[][] cells  = threshold(readImage(file), width, threshold);
+		Nonogram    puzzle = toPuzzle(cells);
+		if (CHECKER.get().check(puzzle) != 1)
+			return null;
+		int    numCols = cells[0].length;
+		long[] goal    = new long[(cells.length*numCols + 63) >>> 6];
+		for (int row=0; row<cells.length; row++) {
+			for (int col=0; col<numCols; col++) {
+				int idx = row*numCols + col;
+				if (cells[row][col])
+					goal[idx >>> 6] |= 1L << idx;
+			}
+		}
+		puzzle.setGoal(goal);
+		puzzle.setMetadata("title", file.getFileName().toString());
+		return puzzle.toStringAsNonFile();
+	}
+
+	/**
+	 * The lengths of the runs of full cells in a line
+	 */
+	private static int[] runs(boolean[] line, int len) {
+		int[] nums = new int[(len + 1) / 2];
+		int   n    = 0;
+		int   run  = 0;
+		for (int i=0; i<=len; i++) {
+			if ((i < len) && line[i]) {
+				run++;
+			} else if (run > 0) {
+				nums[n++] = run;
+				run = 0;
+			}
+		}
+		return Arrays.copyOf(nums, n);
+	}
+
+	/**
+	 * Read a PBM (P1, P4) or PGM (P2, P5) image
+	 */
+	private static double[][] readNetpbm(InputStream in) throws IOException {
+		if (in.read() != 'P')
+			throw new IOException("not a PBM or PGM file");
+		int     kind   = in.read() - '0';
+		boolean bitmap = (kind == 1) || (kind == 4);
+		if ((kind != 1) && (kind != 2) && (kind != 4) && (kind != 5))
+			throw new IOException("unsupported Netpbm type (P" + kind + ")");
+		int width  = readHeaderInt(in);
+		int height = readHeaderInt(in);
+		int maxval = bitmap ? 1 : readHeaderInt(in);
+		if ((width < 1) || (height < 1) || (maxval < 1) || (maxval > 65535) || ((long) width*height > MAX_PIXELS))
+			throw new IOException("invalid Netpbm header (" + width + "x" + height + ", maxval " + maxval + ")");
+		double[][] grey = new double[height][width];
+		for (int row=0; row<height; row++) {
+			if (kind == 4) { // rows are padded to whole bytes
+				for (int col=0; col<width; col+=8) {
+					int b = read(in);
+					for (int bit=0; (bit < 8) && (col + bit < width); bit++)
+						grey[row][col + bit] = ((b >> (7 - bit)) & 1) == 1 ? 0 : 1;
+				}
+				continue;
+			}
+			for (int col=0; col<width; col++) {
+				int v;
+				if (kind == 5)
+					v = (maxval < 256) ? read(in) : (read(in) << 8) | read(in);
+				else if (kind == 1)
+					v = readBit(in);
+				else
+					v = readHeaderInt(in);
+				if (v > maxval)
+					throw new IOException("sample " + v + " exceeds maxval " + maxval);
+				grey[row][col] = bitmap ? 1 - v : (double) v / maxval; // in a PBM, 1 is black
+			}
+		}
+		return grey;
+	}
+
+	/**
+	 * Read a decimal number from a Netpbm header or plain raster, skipping white space and comments;
+	 * for a header, the single white space character that follows the number is consumed
+	 */
+	private static int readHeaderInt(InputStream in) throws IOException {
+		int c = skipSpace(in);
+		if ((c < '0') || (c > '9'))
+			throw new IOException("invalid Netpbm number");
+		int value = 0;
+		while ((c >= '0') && (c <= '9')) {
+			value = 10*value + (c - '0');
+			if (value > MAX_PIXELS)
+				throw new IOException("Netpbm number too large");
+			c = in.read();
+		}
+		return value;
+	}
+
+	/**
+	 * Read one sample of a plain PBM, where the 0s and 1s need not be separated
+	 */
+	private static int readBit(InputStream in) throws IOException {
+		int c = skipSpace(in);
+		if ((c != '0') && (c != '1'))
+			throw new IOException("invalid PBM sample");
+		return c - '0';
+	}
+
+	/**
+	 * Skip white space and comments, returning the first other character
+	 */
+	private static int skipSpace(InputStream in) throws IOException {
+		int c = in.read();
+		while (true) {
+			if (c == '#') {
+				while ((c != '\n') && (c != '\r') && (c != -1))
+					c = in.read();
+			} else if ((c == ' ') || (c == '\t') || (c == '\n') || (c == '\r')) {
+				c = in.read();
+			} else {
+				break;
+			}
+		}
+		if (c == -1)
+			throw new IOException("unexpected end of file");
+		return c;
+	}
+
+	private static int read(InputStream in) throws IOException {
+		int b = in.read();
+		if (b == -1)
+			throw new IOException("unexpected end of file");
+		return b;
+	}
+
+	private static boolean isImage(Path path) {
+		String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+		for (String suffix : IMAGE_SUFFIXES)
+			if (name.endsWith(suffix))
+				return true;
+		return false;
+	}
+
+	/**
+	 * The default grey level below which a cell is full
+	 */
+	public static final double DEFAULT_THRESHOLD = 0.5;
+
+	private static final int      MAX_PIXELS     = 1 << 26; // guards against absurd headers
+	private static final String[] IMAGE_SUFFIXES = { ".pbm", ".pgm", ".png", ".gif", ".bmp", ".jpg", ".jpeg" };
+
+	// a checker per pool thread, since a UniquenessChecker is not thread-safe
+	private static final ThreadLocal<UniquenessChecker> CHECKER = ThreadLocal.withInitial(UniquenessChecker::new);
+
+	private final List<Path> files;
+	private int              threads   = Runtime.getRuntime().availableProcessors();
+	private int              width     = 0;
+	private double           threshold = DEFAULT_THRESHOLD;
+	private int              kept      = 0;
+	private int              ambiguous = 0;
+	private int              rejected  = 0;
+}
@@ -0,0 +1,260 @@
+package nonogram.solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nonogram.LineCache;
+import nonogram.Nonogram;
+
+/**
+ * Automated solver for a Nonogram puzzle.
+ * <p>
+ * The solver starts from the current cell states of the puzzle and repeatedly applies the line
+ * solver to the rows and columns (see Propagator) until nothing changes. The deduced cells are
+ * written back into the puzzle. If probing is enabled with setProbing(), a failed-literal Prober
+ * then fixes what it can before anything is written back. When that stalls, search() continues with a search whose
+ * branching heuristic can be chosen with setHeuristic(), and whose mode (a sequential
+ * BacktrackingSearch, a fork/join ParallelSearch or a clause-learning CdclSearch) can be chosen
+ * with setSearchMode().
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class Solver {
+	/**
+	 * The outcome of a solve
+	 */
+	public enum Status {
+		/** every cell is known and all rows and columns are satisfied */
+		SOLVED,
+		/** line logic could not fix every cell */
+		STALLED,
+		/** the current cell states cannot be completed to a solution */
+		CONTRADICTION,
+		/** the search was given up because the cancel flag was raised */
+		CANCELLED
+	}
+
+	/**
+	 * The search engine used by search()
+	 */
+	public enum SearchMode {
+		/** sequential depth-first search (BacktrackingSearch) */
+		BACKTRACK,
+		/** fork/join depth-first search across cores (ParallelSearch) */
+		PARALLEL,
+		/** clause-learning search with backjumping and restarts (CdclSearch), for very hard puzzles */
+		CDCL
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param puzzle the puzzle to solve
+	 */
+	public Solver(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		this.puzzle     = puzzle;
+		this.propagator = new Propagator(puzzle.getNumRows(), puzzle.getNumCols());
+	}
+
+	/**
+	 * Solve the puzzle as far as line logic (and probing, if enabled) allows, writing the fixed cells
+	 * back into the puzzle. Nothing is written back if a contradiction is found.
+	 *
+	 * @return the outcome
+	 */
+	public Status solve() {
+		grid = new Grid(puzzle);
+		if (!propagator.propagate(grid) || !probe(grid))
+			return Status.CONTRADICTION;
+		grid.applyTo(puzzle);
+		return grid.isComplete() ? Status.SOLVED : Status.STALLED;
+	}
+
+	/**
+	 * Solve the puzzle completely, searching when line logic stalls, and write the first solution
+	 * found back into the puzzle. Nothing is written back if there is no solution.
+	 *
+	 * @return SOLVED, CONTRADICTION if the puzzle (from its current cell states) has no solution, or
+	 *         CANCELLED if the cancel flag was raised first
+	 */
+	public Status search() {
+		grid = new Grid(puzzle);
+		if (!probe(grid))
+			return Status.CONTRADICTION;
+		Grid    solution;
+		boolean cancelled = false;
+		if (mode == SearchMode.PARALLEL) {
+			ParallelSearch search = new ParallelSearch(heuristic, pool);
+			search.setCache(propagator.getCache());
+			search.setCancelFlag(cancel);
+			solution  = search.search(grid);
+			cancelled = search.wasCancelled();
+			nodes     = search.getNodes();
+			maxDepth  = search.getMaxDepth();
+		} else if (mode == SearchMode.CDCL) {
+			cdcl = new CdclSearch();
+			cdcl.setCancelFlag(cancel);
+			solution  = propagator.propagate(grid) ? cdcl.search(grid) : null; // line logic first, as for BACKTRACK
+			cancelled = cdcl.wasCancelled();
+			nodes     = cdcl.getDecisions();
+			maxDepth  = cdcl.getMaxDepth();
+		} else {
+			BacktrackingSearch search = new BacktrackingSearch(propagator, heuristic);
+			search.setCancelFlag(cancel);
+			solution  = search.search(grid);
+			cancelled = search.wasCancelled();
+			nodes     = search.getNodes();
+			maxDepth  = search.getMaxDepth();
+		}
+		if (solution == null)
+			return cancelled ? Status.CANCELLED : Status.CONTRADICTION;
+		grid = solution;
+		grid.applyTo(puzzle);
+		return Status.SOLVED;
+	}
+
+	/**
+	 * Set the heuristic used to choose the cell to branch on during search
+	 *
+	 * @param heuristic the heuristic
+	 */
+	public void setHeuristic(BranchHeuristic heuristic) {
+		if (heuristic == null)
+			throw new IllegalArgumentException("heuristic cannot be null");
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Set the search engine used by search()
+	 *
+	 * @param mode the search mode
+	 */
+	public void setSearchMode(SearchMode mode) {
+		if (mode == null)
+			throw new IllegalArgumentException("mode cannot be null");
+		this.mode = mode;
+	}
+
+	/**
+	 * Set the pool used by the PARALLEL search mode
+	 *
+	 * @param pool the fork/join pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		if (pool == null)
+			throw new IllegalArgumentException("pool cannot be null");
+		this.pool = pool;
+	}
+
+	/**
+	 * Set a flag that, once raised by another thread, makes search() give up. Every search mode
+	 * checks it at every search node.
+	 *
+	 * @param cancel the cancel flag (or null for none)
+	 */
+	public void setCancelFlag(AtomicBoolean cancel) {
+		this.cancel = cancel;
+	}
+
+	/**
+	 * Set a cache of line results for propagation, probing and search to share (none by default).
+	 * The CDCL search mode does not use it.
+	 *
+	 * @param cache the cache (or null for none)
+	 */
+	public void setCache(LineCache cache) {
+		propagator.setCache(cache);
+	}
+
+	/**
+	 * Enable or disable the probing stage between line logic and search (disabled by default).
+	 * Probing runs in the pool set by setPool().
+	 *
+	 * @param probing true to probe, false not to
+	 */
+	public void setProbing(boolean probing) {
+		this.probing = probing;
+	}
+
+	/**
+	 * Retrieve the prober of the last solve, for its per-round counters
+	 *
+	 * @return the prober (or null if probing has not run)
+	 */
+	public Prober getProber() {
+		return prober;
+	}
+
+	/**
+	 * Retrieve the number of search nodes (guesses) made by the last call to search()
+	 *
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Retrieve the deepest level of guesses reached by the last call to search()
+	 *
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Retrieve the engine of the last CDCL search, for its conflict, learned clause and restart counters
+	 *
+	 * @return the CDCL search (or null if search() has not run in CDCL mode)
+	 */
+	public CdclSearch getCdclSearch() {
+		return cdcl;
+	}
+
+	/**
+	 * Retrieve the working grid from the last solve
+	 *
+	 * @return the grid (or null if solve has not been called)
+	 */
+	public Grid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Retrieve the propagator, for its counters
+	 *
+	 * @return the propagator
+	 */
+	public Propagator getPropagator() {
+		return propagator;
+	}
+
+	/**
+	 * Run the probing stage on a grid, if enabled
+	 */
+	private boolean probe(Grid grid) {
+		if (!probing)
+			return true;
+		if ((prober == null) || (prober.getPool() != pool))
+			prober = new Prober(pool);
+		prober.setCache(propagator.getCache());
+		return prober.probe(grid);
+	}
+
+	private final Nonogram   puzzle;
+	private final Propagator propagator;
+	private BranchHeuristic  heuristic = new MostConstrainedHeuristic();
+	private SearchMode       mode      = SearchMode.BACKTRACK;
+	private ForkJoinPool     pool      = ForkJoinPool.commonPool();
+	private Grid             grid      = null;
+	private CdclSearch       cdcl      = null;
+	private boolean          probing   = false;
+	private AtomicBoolean    cancel    = null;
+	private Prober           prober    = null;
+	private long             nodes     = 0;
+	private int              maxDepth  = 0;
+}
@@ -0,0 +1,155 @@
+package nonogram.solver;
+
+import java.util.Collections;
+import java.util.List;
+
+import nonogram.Nonogram;
+
+/**
+ * Checks that a puzzle has exactly one solution before it is published.
+ * <p>
+ * The checker counts solutions with a BacktrackingSearch that carries on past the first solution,
+ * and stops as soon as the cap (normally 2) is reached, so a puzzle with many solutions costs no
+ * more than one with two. When there is more than one solution the second one found is kept as a
+ * witness, and can be compared with the first to show where the puzzle is ambiguous.
+ * <p>
+ * The results of the last check are held by the checker, so a UniquenessChecker is not
+ * thread-safe; use one per thread.
+ *
+ * @author Niteesh
+ * @version October 2026
+ */
+public class UniquenessChecker {
+	/**
+	 * Constructor, counting up to 2 solutions
+	 */
+	public UniquenessChecker() {
+		this(2);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param cap the most solutions to count (at least 1)
+	 */
+	public UniquenessChecker(int cap) {
+		if (cap < 1)
+			throw new IllegalArgumentException("cap must be at least 1 (" + cap + ")");
+		this.cap = cap;
+	}
+
+	/**
+	 * Count the solutions of a puzzle from its current cell states, up to the cap.
+	 * The puzzle itself is not changed.
+	 *
+	 * @param puzzle the puzzle to check
+	 * @return the number of solutions found (the cap means "at least the cap")
+	 */
+	public int check(Nonogram puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("puzzle cannot be null");
+		return check(new Grid(puzzle));
+	}
+
+	/**
+	 * Count the solutions reachable from a grid, up to the cap. The grid itself is not changed.
+	 *
+	 * @param grid the starting grid
+	 * @return the number of solutions found (the cap means "at least the cap")
+	 */
+	public int check(Grid grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid cannot be null");
+		if ((search == null) || (search.getHeuristic() != heuristic)
+				|| (numRows != grid.getNumRows()) || (numCols != grid.getNumCols())) {
+			numRows = grid.getNumRows();
+			numCols = grid.getNumCols();
+			search  = new BacktrackingSearch(new Propagator(numRows, numCols), heuristic);
+		}
+		solutions = search.searchAll(grid, cap);
+		return solutions.size();
+	}
+
+	/**
+	 * Did the last check find exactly one solution?
+	 *
+	 * @return true if the puzzle is unique, otherwise false
+	 */
+	public boolean isUnique() {
+		return solutions.size() == 1;
+	}
+
+	/**
+	 * Retrieve the number of solutions found by the last check
+	 *
+	 * @return the number of solutions (at most the cap)
+	 */
+	public int getCount() {
+		return solutions.size();
+	}
+
+	/**
+	 * Retrieve the first solution found by the last check
+	 *
+	 * @return the solution, or null if there is none
+	 */
+	public Grid getSolution() {
+		return solutions.isEmpty() ? null : solutions.get(0);
+	}
+
+	/**
+	 * Retrieve a second, distinct solution found by the last check, as a witness that the puzzle
+	 * is not unique
+	 *
+	 * @return the second solution, or null if fewer than two solutions were found
+	 */
+	public Grid getWitness() {
+		return (solutions.size() < 2) ? null : solutions.get(1);
+	}
+
+	/**
+	 * Retrieve every solution found by the last check
+	 *
+	 * @return the solutions, in the order found (unmodifiable)
+	 */
+	public List<Grid> getSolutions() {
+		return Collections.unmodifiableList(solutions);
+	}
+
+	/**
+	 * Retrieve the number of search nodes (guesses) made, over the checks since the puzzle size
+	 * or heuristic last changed
+	 *
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return (search == null) ? 0 : search.getNodes();
+	}
+
+	/**
+	 * Set the heuristic used to choose the cell to branch on
+	 *
+	 * @param heuristic the heuristic
+	 */
+	public void setHeuristic(BranchHeuristic heuristic) {
+		if (heuristic == null)
+			throw new IllegalArgumentException("heuristic cannot be null");
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Retrieve the cap on the number of solutions counted
+	 *
+	 * @return the cap
+	 */
+	public int getCap() {
+		return cap;
+	}
+
+	private final int          cap;
+	private BranchHeuristic    heuristic  = new MostConstrainedHeuristic();
+	private BacktrackingSearch search     = null;
+	private int                numRows    = 0;
+	private int                numCols    = 0;
+	private List<Grid>         solutions  = Collections.emptyList();
+}